@@ -0,0 +1,62 @@
+import com.vanniktech.maven.publish.JavaLibrary
+import com.vanniktech.maven.publish.JavadocJar
+import com.vanniktech.maven.publish.SourcesJar
+
+description = "Flow.Publisher adapter for small-json (Java 9+)"
+
+plugins {
+    id("com.vanniktech.maven.publish")
+    id("base-lib")
+}
+
+group = rootProject.group
+version = rootProject.version
+
+dependencies {
+    api(rootProject)
+}
+
+tasks {
+    withType(JavaCompile::class).configureEach {
+        if (name != "compileTestJava") {
+            options.release.set(9)
+        }
+    }
+    jar {
+        manifest.attributes["Automatic-Module-Name"] = "io.github.osobolev.smalljson.flow"
+    }
+}
+
+mavenPublishing {
+    publishToMavenCentral()
+    signAllPublications()
+
+    coordinates("${project.group}", "small-json-flow", "${project.version}")
+    configure(JavaLibrary(
+        javadocJar = JavadocJar.Javadoc(),
+        sourcesJar = SourcesJar.Sources()
+    ))
+}
+
+mavenPublishing.pom {
+    name.set("small-json-flow")
+    description.set("Flow.Publisher adapter for small-json")
+    url.set("https://github.com/osobolev/small-json")
+    licenses {
+        license {
+            name.set("The Apache License, Version 2.0")
+            url.set("http://www.apache.org/licenses/LICENSE-2.0.txt")
+        }
+    }
+    developers {
+        developer {
+            name.set("Oleg Sobolev")
+            organizationUrl.set("https://github.com/osobolev")
+        }
+    }
+    scm {
+        connection.set("scm:git:https://github.com/osobolev/small-json.git")
+        developerConnection.set("scm:git:https://github.com/osobolev/small-json.git")
+        url.set("https://github.com/osobolev/small-json")
+    }
+}
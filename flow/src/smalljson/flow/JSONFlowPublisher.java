@@ -0,0 +1,250 @@
+package smalljson.flow;
+
+import smalljson.JSONFactory;
+import smalljson.JSONParseException;
+import smalljson.JSONParseOptions;
+import smalljson.parser.JSONPushParser;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher of values parsed from the publisher of UTF-8 chunks (see {@link JSONPushParser}):
+ * either the whole document, or elements of the top-level array one by one.
+ * <p>
+ * Subscriber demand is respected: the next chunk is requested from the source only when all values
+ * parsed from the previous chunks are delivered and the subscriber requested more values,
+ * so parsing pauses when the subscriber is slow.
+ * Parse errors ({@link JSONParseException} with the error location), other exceptions thrown while parsing
+ * (for example, by the value factory) and errors of the source are passed
+ * to {@link Flow.Subscriber#onError} after the values parsed before the error are delivered.
+ * <p>
+ * Every subscriber subscribes to the source separately.
+ * Reactive Streams do not allow null items, so JSON nulls are published as {@link #NULL}
+ * or as the value passed to the constructor.
+ */
+public final class JSONFlowPublisher implements Flow.Publisher<Object> {
+
+    /**
+     * Is published instead of JSON null by default, since Reactive Streams do not allow null items
+     */
+    public static final Object NULL = new Object() {
+
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    private final JSONParseOptions options;
+    private final boolean arrayElements;
+    private final Flow.Publisher<? extends ByteBuffer> source;
+    private final Object nullValue;
+
+    /**
+     * @param arrayElements if true then the document must be an array, and its elements are published
+     *                      as soon as they are parsed; if false then the whole document is published
+     * @param nullValue     is published instead of null elements or null document, since Reactive Streams
+     *                      do not allow null items
+     */
+    public JSONFlowPublisher(JSONParseOptions options, boolean arrayElements, Flow.Publisher<? extends ByteBuffer> source,
+                             Object nullValue) {
+        this.options = options;
+        this.arrayElements = arrayElements;
+        this.source = source;
+        this.nullValue = Objects.requireNonNull(nullValue);
+    }
+
+    /**
+     * Publishes {@link #NULL} instead of null elements or null document
+     *
+     * @param arrayElements if true then the document must be an array, and its elements are published
+     *                      as soon as they are parsed; if false then the whole document is published
+     */
+    public JSONFlowPublisher(JSONParseOptions options, boolean arrayElements, Flow.Publisher<? extends ByteBuffer> source) {
+        this(options, arrayElements, source, NULL);
+    }
+
+    /**
+     * Publishes the whole document ({@link #NULL} if it is null)
+     */
+    public static JSONFlowPublisher document(JSONFactory factory, Flow.Publisher<? extends ByteBuffer> source) {
+        return new JSONFlowPublisher(factory.getOptions(), false, source);
+    }
+
+    /**
+     * Publishes elements of the top-level array ({@link #NULL} for null elements)
+     */
+    public static JSONFlowPublisher arrayElements(JSONFactory factory, Flow.Publisher<? extends ByteBuffer> source) {
+        return new JSONFlowPublisher(factory.getOptions(), true, source);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+        Objects.requireNonNull(subscriber);
+        source.subscribe(new Bridge(subscriber));
+    }
+
+    /**
+     * Subscription to the source and subscription of the subscriber. All the work is done by {@link #drain()},
+     * which is run by one thread at a time.
+     */
+    private final class Bridge implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super Object> downstream;
+        private final Queue<Object> values = new ArrayDeque<>();
+        private final JSONPushParser parser = new JSONPushParser(options, arrayElements, value -> values.add(value == null ? nullValue : value));
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private Flow.Subscription upstream = null;
+        /**
+         * Is set when the next chunk is requested but is not received yet
+         */
+        private boolean requested = false;
+        private volatile boolean sourceDone = false;
+        private volatile Throwable sourceError = null;
+        private volatile Throwable requestError = null;
+        private volatile boolean cancelled = false;
+        private Throwable error = null;
+        private boolean finished = false;
+
+        Bridge(Flow.Subscriber<? super Object> downstream) {
+            this.downstream = downstream;
+        }
+
+        // Source side
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            chunks.add(chunk);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            sourceError = throwable;
+            sourceDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            sourceDone = true;
+            drain();
+        }
+
+        // Subscriber side
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void fail(Throwable ex) {
+            if (error == null) {
+                error = ex;
+                upstream.cancel();
+            }
+        }
+
+        private void parse() {
+            ByteBuffer chunk;
+            while (error == null && (chunk = chunks.poll()) != null) {
+                requested = false;
+                try {
+                    parser.feed(chunk);
+                } catch (RuntimeException ex) {
+                    // Parse errors and errors of the value factory
+                    fail(ex);
+                }
+            }
+            if (error == null && !finished && sourceDone && chunks.isEmpty()) {
+                finished = true;
+                Throwable ex = sourceError;
+                if (ex != null) {
+                    error = ex;
+                    return;
+                }
+                try {
+                    parser.endOfInput();
+                } catch (RuntimeException rex) {
+                    error = rex;
+                }
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0)
+                return;
+            int missed = 1;
+            while (true) {
+                if (upstream != null && !cancelled) {
+                    Throwable illegal = requestError;
+                    if (illegal != null) {
+                        fail(illegal);
+                        values.clear();
+                    }
+                    parse();
+                    while (!cancelled && !values.isEmpty() && demand.get() > 0) {
+                        Object value = values.poll();
+                        demand.decrementAndGet();
+                        downstream.onNext(value);
+                    }
+                    if (!cancelled && values.isEmpty()) {
+                        if (error != null) {
+                            cancelled = true;
+                            downstream.onError(error);
+                        } else if (finished) {
+                            cancelled = true;
+                            downstream.onComplete();
+                        } else if (!requested && demand.get() > 0 && chunks.isEmpty()) {
+                            requested = true;
+                            upstream.request(1);
+                        }
+                    }
+                }
+                if (cancelled) {
+                    if (upstream != null && error == null && !finished) {
+                        finished = true;
+                        upstream.cancel();
+                    }
+                    values.clear();
+                    chunks.clear();
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package smalljson.flow;
+
+import org.junit.jupiter.api.Test;
+import smalljson.JSONArray;
+import smalljson.JSONFactory;
+import smalljson.JSONObject;
+import smalljson.JSONParseException;
+import smalljson.JSONParseOptions;
+import smalljson.JSONValueFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlowTests {
+
+    private static JSONArray list(Object... items) {
+        return new JSONArray(Arrays.asList(items));
+    }
+
+    private static JSONObject map(String key, Object value) {
+        return new JSONObject(Collections.singletonMap(key, value));
+    }
+
+    /**
+     * Synchronously publishes chunks of the given size when they are requested
+     */
+    private static final class ChunkPublisher implements Flow.Publisher<ByteBuffer> {
+
+        final byte[] json;
+        final int chunk;
+        int position = 0;
+        boolean cancelled = false;
+
+        ChunkPublisher(String json, int chunk) {
+            this.json = json.getBytes(StandardCharsets.UTF_8);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+
+                @Override
+                public void request(long n) {
+                    for (long i = 0; i < n && !cancelled && position < json.length; i++) {
+                        int length = Math.min(chunk, json.length - position);
+                        ByteBuffer bytes = ByteBuffer.wrap(json, position, length);
+                        position += length;
+                        subscriber.onNext(bytes);
+                    }
+                    if (!cancelled && position >= json.length) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static final class Collector implements Flow.Subscriber<Object> {
+
+        final List<Object> values = new ArrayList<>();
+        Flow.Subscription subscription = null;
+        Throwable error = null;
+        boolean completed = false;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Object item) {
+            // Reactive Streams rule 2.13:
+            assertNotNull(item);
+            values.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    public void testBackpressure() {
+        ChunkPublisher source = new ChunkPublisher("[1, {\"a\": [2]}, \"x\", null, 3]", 4);
+        Collector collector = new Collector();
+        JSONFlowPublisher.arrayElements(JSONFactory.JSON, source).subscribe(collector);
+        assertEquals(0, source.position);
+        collector.subscription.request(2);
+        assertEquals(list(1, map("a", list(2))), new JSONArray(collector.values));
+        // Input is read only up to the second element:
+        assertEquals(16, source.position);
+        collector.subscription.request(Long.MAX_VALUE);
+        collector.subscription.request(Long.MAX_VALUE);
+        assertEquals(list(1, map("a", list(2)), "x", JSONFlowPublisher.NULL, 3), new JSONArray(collector.values));
+        assertTrue(collector.completed);
+        assertNull(collector.error);
+    }
+
+    @Test
+    public void testNulls() {
+        Collector collector = new Collector();
+        new JSONFlowPublisher(JSONFactory.JSON.getOptions(), true, new ChunkPublisher("[null, [null]]", 3), "none").subscribe(collector);
+        collector.subscription.request(Long.MAX_VALUE);
+        // Only published items are replaced:
+        assertEquals(list("none", list((Object) null)), new JSONArray(collector.values));
+        assertThrows(NullPointerException.class, () -> new JSONFlowPublisher(JSONFactory.JSON.getOptions(), true, new ChunkPublisher("[]", 1), null));
+
+        Collector document = new Collector();
+        JSONFlowPublisher.document(JSONFactory.JSON, new ChunkPublisher(" null ", 2)).subscribe(document);
+        document.subscription.request(1);
+        assertEquals(list(JSONFlowPublisher.NULL), new JSONArray(document.values));
+        assertTrue(document.completed);
+    }
+
+    @Test
+    public void testDocument() {
+        String json = "{\"key\": \"value\", \"unicode\": \"\u00e9\u4e2d\ud83d\ude00\", \"list\": [1, 2.5, true]}";
+        for (int chunk : new int[] {1, 3, 1000}) {
+            Collector collector = new Collector();
+            JSONFlowPublisher.document(JSONFactory.JSON, new ChunkPublisher(json, chunk)).subscribe(collector);
+            collector.subscription.request(1);
+            assertEquals(list(JSONFactory.JSON.parse(json)), new JSONArray(collector.values));
+            assertTrue(collector.completed);
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        ChunkPublisher source = new ChunkPublisher("[1, 2, @, 3]", 2);
+        Collector collector = new Collector();
+        JSONFlowPublisher.arrayElements(JSONFactory.JSON, source).subscribe(collector);
+        collector.subscription.request(10);
+        assertEquals(list(1, 2), new JSONArray(collector.values));
+        assertInstanceOf(JSONParseException.class, collector.error);
+        String expected = assertThrows(JSONParseException.class, () -> JSONFactory.JSON.parse("[1, 2, @, 3]")).getMessage();
+        assertEquals(expected, collector.error.getMessage());
+        assertTrue(source.cancelled);
+        assertFalse(collector.completed);
+
+        Collector incomplete = new Collector();
+        JSONFlowPublisher.document(JSONFactory.JSON, new ChunkPublisher("[1, 2", 2)).subscribe(incomplete);
+        incomplete.subscription.request(1);
+        assertInstanceOf(JSONParseException.class, incomplete.error);
+
+        JSONFactory failing = JSONParseOptions.builder().valueFactory(new JSONValueFactory() {
+
+            @Override
+            public Object boolValue(boolean b) {
+                throw new IllegalStateException("Factory error");
+            }
+        }).build();
+        // Value is created by feeding a chunk or at the end of input:
+        for (boolean arrayElements : new boolean[] {true, false}) {
+            Collector factoryError = new Collector();
+            String json = arrayElements ? "[1, true]" : "true";
+            new JSONFlowPublisher(failing.getOptions(), arrayElements, new ChunkPublisher(json, 1)).subscribe(factoryError);
+            factoryError.subscription.request(10);
+            assertInstanceOf(IllegalStateException.class, factoryError.error);
+            assertFalse(factoryError.completed);
+        }
+
+        Collector illegal = new Collector();
+        JSONFlowPublisher.document(JSONFactory.JSON, new ChunkPublisher("[]", 2)).subscribe(illegal);
+        illegal.subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, illegal.error);
+    }
+
+    @Test
+    public void testCancel() {
+        ChunkPublisher source = new ChunkPublisher("[1, 2, 3, 4]", 1);
+        Collector collector = new Collector();
+        JSONFlowPublisher.arrayElements(JSONFactory.JSON, source).subscribe(collector);
+        collector.subscription.request(1);
+        assertEquals(list(1), new JSONArray(collector.values));
+        collector.subscription.cancel();
+        assertTrue(source.cancelled);
+        collector.subscription.request(1);
+        assertEquals(list(1), new JSONArray(collector.values));
+        assertFalse(collector.completed);
+        assertNull(collector.error);
+    }
+}
@@ -3,3 +3,5 @@ plugins {
 }
 
 rootProject.name = "small-json"
+
+include("flow")
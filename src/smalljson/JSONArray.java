@@ -49,6 +49,64 @@ public final class JSONArray implements Iterable<Object> {
         return JSONConverter.convert(cls, item);
     }
 
+    private <T> T getNotNull(int index, Class<T> cls) {
+        T result = get(index, cls);
+        if (result == null)
+            throw new JSONRuntimeException("Element " + index + " is null");
+        return result;
+    }
+
+    /**
+     * Converts all elements as by {@code get(i, Integer.class)}, elements must not be null.
+     * Numbers stored in {@link JSONCompactList} are converted without boxing.
+     */
+    public int[] toIntArray() {
+        if (list instanceof JSONCompactList) {
+            int[] result = ((JSONCompactList) list).toIntArray();
+            if (result != null)
+                return result;
+        }
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getNotNull(i, Integer.class);
+        }
+        return result;
+    }
+
+    /**
+     * Converts all elements as by {@code get(i, Long.class)}, elements must not be null.
+     * Numbers stored in {@link JSONCompactList} are converted without boxing.
+     */
+    public long[] toLongArray() {
+        if (list instanceof JSONCompactList) {
+            long[] result = ((JSONCompactList) list).toLongArray();
+            if (result != null)
+                return result;
+        }
+        long[] result = new long[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getNotNull(i, Long.class);
+        }
+        return result;
+    }
+
+    /**
+     * Converts all elements as by {@code get(i, Double.class)}, elements must not be null.
+     * Numbers stored in {@link JSONCompactList} are converted without boxing.
+     */
+    public double[] toDoubleArray() {
+        if (list instanceof JSONCompactList) {
+            double[] result = ((JSONCompactList) list).toDoubleArray();
+            if (result != null)
+                return result;
+        }
+        double[] result = new double[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getNotNull(i, Double.class);
+        }
+        return result;
+    }
+
     public JSONArray add(Object value) {
         list.add(value);
         return this;
@@ -0,0 +1,337 @@
+package smalljson;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List which keeps numbers of the same kind in a primitive array: {@code int[]} if all elements are {@link Integer}s,
+ * {@code long[]} if they are {@link Integer}s and {@link Long}s beyond {@code int} range (as created by
+ * {@link JSONValueFactory#longValue(long)}), {@code double[]} if all elements are {@link Double}s.
+ * Elements are boxed on access, so the list is equal to the list of boxed values.
+ * When an element of another kind is added, the elements are boxed and kept in {@code Object[]}.
+ * <p>
+ * Is created by {@link JSONValueFactory#COMPACT_ARRAYS} and {@link JSONValueFactory#COMPACT_VALUES}; parser calls {@link #trimToSize()} when the array ends.
+ */
+public final class JSONCompactList extends AbstractList<Object> implements RandomAccess {
+
+    // Element storage:
+    private static final int EMPTY = 0;
+    private static final int INTS = 1;
+    private static final int LONGS = 2;
+    private static final int DOUBLES = 3;
+    private static final int OBJECTS = 4;
+
+    private int kind = EMPTY;
+    private int[] ints = null;
+    private long[] longs = null;
+    private double[] doubles = null;
+    private Object[] objects = null;
+    private int size = 0;
+
+    private static int kindOf(Object element) {
+        if (element instanceof Integer) {
+            return INTS;
+        } else if (element instanceof Long) {
+            long value = (Long) element;
+            // Long in int range would be returned as Integer from long[]
+            return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? OBJECTS : LONGS;
+        } else if (element instanceof Double) {
+            return DOUBLES;
+        } else {
+            return OBJECTS;
+        }
+    }
+
+    /**
+     * @return storage kind for the current elements and the new element
+     */
+    private int kindWith(Object element) {
+        int elementKind = kindOf(element);
+        if (kind == EMPTY || kind == elementKind)
+            return elementKind;
+        if ((kind == INTS && elementKind == LONGS) || (kind == LONGS && elementKind == INTS))
+            return LONGS;
+        return OBJECTS;
+    }
+
+    private int capacity() {
+        switch (kind) {
+        case INTS:
+            return ints.length;
+        case LONGS:
+            return longs.length;
+        case DOUBLES:
+            return doubles.length;
+        case OBJECTS:
+            return objects.length;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Changes storage kind keeping the elements
+     */
+    private void convert(int newKind, int capacity) {
+        if (newKind == LONGS) {
+            longs = new long[capacity];
+            for (int i = 0; i < size; i++) {
+                longs[i] = ints[i];
+            }
+        } else if (newKind == OBJECTS) {
+            objects = new Object[capacity];
+            for (int i = 0; i < size; i++) {
+                objects[i] = get(i);
+            }
+        } else if (newKind == INTS) {
+            ints = new int[capacity];
+        } else if (newKind == DOUBLES) {
+            doubles = new double[capacity];
+        }
+        if (newKind != INTS) {
+            ints = null;
+        }
+        if (newKind != LONGS) {
+            longs = null;
+        }
+        if (newKind != DOUBLES) {
+            doubles = null;
+        }
+        kind = newKind;
+    }
+
+    private void resize(int capacity) {
+        switch (kind) {
+        case INTS:
+            ints = Arrays.copyOf(ints, capacity);
+            break;
+        case LONGS:
+            longs = Arrays.copyOf(longs, capacity);
+            break;
+        case DOUBLES:
+            doubles = Arrays.copyOf(doubles, capacity);
+            break;
+        case OBJECTS:
+            objects = Arrays.copyOf(objects, capacity);
+            break;
+        }
+    }
+
+    private Object array() {
+        switch (kind) {
+        case INTS:
+            return ints;
+        case LONGS:
+            return longs;
+        case DOUBLES:
+            return doubles;
+        default:
+            return objects;
+        }
+    }
+
+    private void store(int index, Object element) {
+        switch (kind) {
+        case INTS:
+            ints[index] = (Integer) element;
+            break;
+        case LONGS:
+            longs[index] = ((Number) element).longValue();
+            break;
+        case DOUBLES:
+            doubles[index] = (Double) element;
+            break;
+        default:
+            objects[index] = element;
+            break;
+        }
+    }
+
+    private void checkIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object get(int index) {
+        checkIndex(index, size);
+        switch (kind) {
+        case INTS:
+            return ints[index];
+        case LONGS:
+            long value = longs[index];
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            } else {
+                return value;
+            }
+        case DOUBLES:
+            return doubles[index];
+        default:
+            return objects[index];
+        }
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        Object old = get(index);
+        int newKind = kindWith(element);
+        if (newKind != kind) {
+            convert(newKind, capacity());
+        }
+        store(index, element);
+        return old;
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        checkIndex(index, size + 1);
+        int newKind = kindWith(element);
+        int capacity = capacity();
+        if (size >= capacity) {
+            capacity = Math.max(8, capacity + (capacity >> 1));
+        }
+        if (newKind != kind) {
+            convert(newKind, capacity);
+        } else if (capacity > capacity()) {
+            resize(capacity);
+        }
+        Object array = array();
+        System.arraycopy(array, index, array, index + 1, size - index);
+        store(index, element);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        Object old = get(index);
+        Object array = array();
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+        if (kind == OBJECTS) {
+            objects[size] = null;
+        }
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        convert(EMPTY, 0);
+        objects = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Shrinks the array to the number of elements
+     */
+    public void trimToSize() {
+        if (capacity() > size) {
+            resize(size);
+        }
+    }
+
+    /**
+     * @return true if elements are kept in a primitive array
+     */
+    boolean isNumbers() {
+        return kind == INTS || kind == LONGS || kind == DOUBLES;
+    }
+
+    /**
+     * Same as {@code get(index).toString()} for lists of numbers (see {@link #isNumbers()})
+     */
+    String numberText(int index) {
+        switch (kind) {
+        case INTS:
+            return Integer.toString(ints[index]);
+        case LONGS:
+            return Long.toString(longs[index]);
+        default:
+            return Double.toString(doubles[index]);
+        }
+    }
+
+    /**
+     * @return null if elements are not numbers kept in a primitive array
+     */
+    int[] toIntArray() {
+        int[] result = new int[size];
+        switch (kind) {
+        case INTS:
+            System.arraycopy(ints, 0, result, 0, size);
+            break;
+        case LONGS:
+            for (int i = 0; i < size; i++) {
+                result[i] = (int) longs[i];
+            }
+            break;
+        case DOUBLES:
+            for (int i = 0; i < size; i++) {
+                result[i] = (int) doubles[i];
+            }
+            break;
+        case OBJECTS:
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * @return null if elements are not numbers kept in a primitive array
+     */
+    long[] toLongArray() {
+        long[] result = new long[size];
+        switch (kind) {
+        case INTS:
+            for (int i = 0; i < size; i++) {
+                result[i] = ints[i];
+            }
+            break;
+        case LONGS:
+            System.arraycopy(longs, 0, result, 0, size);
+            break;
+        case DOUBLES:
+            for (int i = 0; i < size; i++) {
+                result[i] = (long) doubles[i];
+            }
+            break;
+        case OBJECTS:
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * @return null if elements are not numbers kept in a primitive array
+     */
+    double[] toDoubleArray() {
+        double[] result = new double[size];
+        switch (kind) {
+        case INTS:
+            for (int i = 0; i < size; i++) {
+                result[i] = ints[i];
+            }
+            break;
+        case LONGS:
+            for (int i = 0; i < size; i++) {
+                result[i] = longs[i];
+            }
+            break;
+        case DOUBLES:
+            System.arraycopy(doubles, 0, result, 0, size);
+            break;
+        case OBJECTS:
+            return null;
+        }
+        return result;
+    }
+}
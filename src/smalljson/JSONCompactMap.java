@@ -0,0 +1,277 @@
+package smalljson;
+
+import java.util.*;
+
+/**
+ * Insertion-ordered map with keys and values kept in parallel arrays: it takes much less memory
+ * than {@link LinkedHashMap} (no entry objects). Small maps are searched linearly,
+ * maps with more than {@value #LINEAR_MAX} entries also have an open-addressing hash index.
+ * Removal takes linear time.
+ * <p>
+ * Is created by {@link JSONValueFactory#COMPACT} and {@link JSONValueFactory#COMPACT_VALUES}; parser calls {@link #trimToSize()} when the object ends.
+ */
+public final class JSONCompactMap extends AbstractMap<String, Object> {
+
+    private static final int LINEAR_MAX = 8;
+    private static final String[] NO_KEYS = {};
+    private static final Object[] NO_VALUES = {};
+
+    private String[] keys;
+    private Object[] values;
+    private int size = 0;
+    /**
+     * Entry index + 1 for each hash slot (0 for empty slots), null for small maps
+     */
+    private int[] index = null;
+    private int modCount = 0;
+
+    public JSONCompactMap() {
+        this.keys = NO_KEYS;
+        this.values = NO_VALUES;
+    }
+
+    public JSONCompactMap(int capacity) {
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+    }
+
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (index == null) {
+            for (int i = 0; i < size; i++) {
+                String k = keys[i];
+                if (k == key || (key != null && key.equals(k)))
+                    return i;
+            }
+            return -1;
+        }
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int i = index[slot] - 1;
+            if (i < 0)
+                return -1;
+            String k = keys[i];
+            if (k == key || (key != null && key.equals(k)))
+                return i;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void addToIndex(int i) {
+        int mask = index.length - 1;
+        int slot = hash(keys[i]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = i + 1;
+    }
+
+    /**
+     * Rebuilds hash index with at most half of the slots used (or drops it for small maps)
+     */
+    private void rebuildIndex() {
+        if (size <= LINEAR_MAX) {
+            index = null;
+            return;
+        }
+        int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+        if (index == null || index.length != capacity) {
+            index = new int[capacity];
+        } else {
+            Arrays.fill(index, 0);
+        }
+        for (int i = 0; i < size; i++) {
+            addToIndex(i);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : values[i];
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            Object old = values[i];
+            values[i] = value;
+            return old;
+        }
+        if (size >= keys.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        modCount++;
+        if (index != null && size * 2 <= index.length) {
+            addToIndex(size - 1);
+        } else if (size > LINEAR_MAX) {
+            rebuildIndex();
+        }
+        return null;
+    }
+
+    private void removeAt(int i) {
+        int moved = size - i - 1;
+        System.arraycopy(keys, i + 1, keys, i, moved);
+        System.arraycopy(values, i + 1, values, i, moved);
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+        if (index != null) {
+            rebuildIndex();
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        Object old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        index = null;
+        modCount++;
+    }
+
+    /**
+     * Shrinks the arrays to the number of entries
+     */
+    public void trimToSize() {
+        if (keys.length > size) {
+            keys = size == 0 ? NO_KEYS : Arrays.copyOf(keys, size);
+            values = size == 0 ? NO_VALUES : Arrays.copyOf(values, size);
+        }
+    }
+
+    private final class CompactEntry implements Map.Entry<String, Object> {
+
+        private final int i;
+
+        CompactEntry(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public String getKey() {
+            return keys[i];
+        }
+
+        @Override
+        public Object getValue() {
+            return values[i];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = values[i];
+            values[i] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> that = (Map.Entry<?, ?>) obj;
+            return Objects.equals(getKey(), that.getKey()) && Objects.equals(getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void clear() {
+                JSONCompactMap.this.clear();
+            }
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+
+                    private int next = 0;
+                    private int last = -1;
+                    private int expectedModCount = modCount;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        if (next >= size)
+                            throw new NoSuchElementException();
+                        last = next++;
+                        return new CompactEntry(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0)
+                            throw new IllegalStateException();
+                        if (modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        removeAt(last);
+                        next = last;
+                        last = -1;
+                        expectedModCount = modCount;
+                    }
+                };
+            }
+        };
+    }
+}
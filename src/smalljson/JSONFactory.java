@@ -1,23 +1,49 @@
 package smalljson;
 
 import smalljson.parser.FastBufferedReader;
+import smalljson.parser.FastByteBufferReader;
+import smalljson.parser.FastChannelReader;
+import smalljson.parser.FastMappedReader;
 import smalljson.parser.FastReader;
 import smalljson.parser.FastStringReader;
+import smalljson.parser.FastUtf8Reader;
+import smalljson.parser.JSONIndexedParser;
+import smalljson.parser.JSONLazyParser;
+import smalljson.parser.JSONLinesReader;
+import smalljson.parser.JSONParallelParser;
 import smalljson.parser.JSONParser;
-
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import smalljson.parser.JSONProjection;
+import smalljson.parser.JSONPushParser;
+import smalljson.parser.JSONStreamReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class JSONFactory {
 
     public static final JSONFactory JSON = new JSONFactory();
 
     private final JSONParseOptions options;
+    private final ParserPool pool;
 
     public JSONFactory(JSONParseOptions options) {
         this.options = options;
+        this.pool = new ParserPool(options);
     }
 
     public JSONFactory() {
@@ -42,91 +68,376 @@ public final class JSONFactory {
 
     // Parsing
 
+    /**
+     * Creates new parser; note that parse methods of the factory reuse parsers and their buffers instead
+     */
     public JSONParser newParser(FastReader rdr) {
         return new JSONParser(options, rdr);
     }
 
+    public JSONStreamReader newStreamReader(FastReader rdr) {
+        return new JSONStreamReader(options, rdr);
+    }
+
+    /**
+     * Creates non-blocking parser which passes the parsed document to the consumer
+     */
+    public JSONPushParser newPushParser(Consumer<Object> consumer) {
+        return new JSONPushParser(options, false, consumer);
+    }
+
+    /**
+     * Creates non-blocking parser of the top-level array which passes its elements to the consumer as soon as they are parsed
+     */
+    public JSONPushParser newArrayPushParser(Consumer<Object> consumer) {
+        return new JSONPushParser(options, true, consumer);
+    }
+
     public static FastReader toFast(Reader rdr) {
         return new FastBufferedReader(rdr);
     }
 
+    /**
+     * Input stream is read as UTF-8
+     */
     public static FastReader toFast(InputStream is) {
-        return toFast(new InputStreamReader(is, StandardCharsets.UTF_8));
+        return new FastUtf8Reader(is);
     }
 
     public static FastReader toFast(String json) {
         return new FastStringReader(json);
     }
 
+    /**
+     * Bytes between position and limit are read as UTF-8; buffer position is not changed
+     */
+    public static FastReader toFast(ByteBuffer buffer) {
+        return new FastByteBufferReader(buffer);
+    }
+
+    /**
+     * Channel is read as UTF-8; it must be in blocking mode (non-blocking input can be parsed by {@link JSONPushParser})
+     */
+    public static FastReader toFast(ReadableByteChannel channel) {
+        return new FastChannelReader(channel);
+    }
+
     // Objects
 
     public JSONObject parseObject(FastReader rdr) {
-        return newParser(rdr).parseObject();
+        return pool.parse(entry -> rdr, JSONParser::parseObject);
     }
 
     public JSONObject parseObject(Reader rdr) {
-        return parseObject(toFast(rdr));
+        return pool.parse(entry -> entry.reader(rdr), JSONParser::parseObject);
     }
 
     public JSONObject parseObject(InputStream is) {
-        return parseObject(toFast(is));
+        return pool.parse(entry -> entry.stream(is), JSONParser::parseObject);
     }
 
     public JSONObject parseObject(String json) {
-        return parseObject(toFast(json));
+        return pool.parse(entry -> entry.string(json), JSONParser::parseObject);
+    }
+
+    public JSONObject parseObject(ByteBuffer buffer) {
+        return pool.parse(entry -> entry.buffer(buffer), JSONParser::parseObject);
+    }
+
+    public JSONObject parseObject(ReadableByteChannel channel) {
+        return pool.parse(entry -> entry.channel(channel), JSONParser::parseObject);
     }
 
     public JSONObject parseObject(Path file) throws IOException {
-        try (BufferedReader rdr = Files.newBufferedReader(file)) {
-            return parseObject(rdr);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parseObject(mapped(channel));
+        }
+    }
+
+    // Projected objects
+
+    /**
+     * Parses only the paths selected by the projection, other values are skipped without creating them
+     */
+    public JSONObject parseObject(FastReader rdr, JSONProjection projection) {
+        JSONStreamReader reader = newStreamReader(rdr);
+        reader.nextValue();
+        JSONObject result = reader.getObject(projection);
+        reader.nextValue();
+        return result;
+    }
+
+    public JSONObject parseObject(Reader rdr, JSONProjection projection) {
+        return parseObject(toFast(rdr), projection);
+    }
+
+    public JSONObject parseObject(InputStream is, JSONProjection projection) {
+        return parseObject(toFast(is), projection);
+    }
+
+    public JSONObject parseObject(String json, JSONProjection projection) {
+        return parseObject(toFast(json), projection);
+    }
+
+    public JSONObject parseObject(ByteBuffer buffer, JSONProjection projection) {
+        return parseObject(toFast(buffer), projection);
+    }
+
+    public JSONObject parseObject(ReadableByteChannel channel, JSONProjection projection) {
+        return parseObject(toFast(channel), projection);
+    }
+
+    public JSONObject parseObject(Path file, JSONProjection projection) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parseObject(mapped(channel), projection);
         }
     }
 
     // Arrays
 
     public JSONArray parseArray(FastReader rdr) {
-        return newParser(rdr).parseArray();
+        return pool.parse(entry -> rdr, JSONParser::parseArray);
     }
 
     public JSONArray parseArray(Reader rdr) {
-        return parseArray(toFast(rdr));
+        return pool.parse(entry -> entry.reader(rdr), JSONParser::parseArray);
     }
 
     public JSONArray parseArray(InputStream is) {
-        return parseArray(toFast(is));
+        return pool.parse(entry -> entry.stream(is), JSONParser::parseArray);
     }
 
     public JSONArray parseArray(String json) {
-        return parseArray(toFast(json));
+        return pool.parse(entry -> entry.string(json), JSONParser::parseArray);
+    }
+
+    public JSONArray parseArray(ByteBuffer buffer) {
+        return pool.parse(entry -> entry.buffer(buffer), JSONParser::parseArray);
+    }
+
+    public JSONArray parseArray(ReadableByteChannel channel) {
+        return pool.parse(entry -> entry.channel(channel), JSONParser::parseArray);
     }
 
     public JSONArray parseArray(Path file) throws IOException {
-        try (BufferedReader rdr = Files.newBufferedReader(file)) {
-            return parseArray(rdr);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parseArray(mapped(channel));
         }
     }
 
     // Any value
 
     public Object parse(FastReader rdr) {
-        return newParser(rdr).parse();
+        return pool.parse(entry -> rdr, JSONParser::parse);
     }
 
     public Object parse(Reader rdr) {
-        return parse(toFast(rdr));
+        return pool.parse(entry -> entry.reader(rdr), JSONParser::parse);
     }
 
     public Object parse(InputStream is) {
-        return parse(toFast(is));
+        return pool.parse(entry -> entry.stream(is), JSONParser::parse);
     }
 
     public Object parse(String json) {
-        return parse(toFast(json));
+        return pool.parse(entry -> entry.string(json), JSONParser::parse);
+    }
+
+    public Object parse(ByteBuffer buffer) {
+        return pool.parse(entry -> entry.buffer(buffer), JSONParser::parse);
+    }
+
+    public Object parse(ReadableByteChannel channel) {
+        return pool.parse(entry -> entry.channel(channel), JSONParser::parse);
     }
 
     public Object parse(Path file) throws IOException {
-        try (BufferedReader rdr = Files.newBufferedReader(file)) {
-            return parse(rdr);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(mapped(channel));
+        }
+    }
+
+    // Indexed parsing
+
+    /**
+     * Parses UTF-8 bytes using a structural index (see {@link JSONIndexedParser}), result is the same as of {@link #parse(ByteBuffer)}
+     */
+    public Object parseIndexed(byte[] json) {
+        return new JSONIndexedParser(options, json).parse();
+    }
+
+    /**
+     * Parses string using a structural index (see {@link JSONIndexedParser}), result is the same as of {@link #parse(String)}
+     */
+    public Object parseIndexed(String json) {
+        return new JSONIndexedParser(options, json).parse();
+    }
+
+    // Lazy parsing
+
+    /**
+     * Parses UTF-8 bytes on demand: values of objects and arrays are decoded when first accessed (see {@link JSONLazyParser}).
+     * The result is not thread-safe even for reading and keeps the whole input in memory:
+     * use {@link JSONLazyParser#materialize(Object)} for values which are shared between threads or cached.
+     */
+    public Object parseLazy(byte[] json) {
+        return new JSONLazyParser(options, json).parse();
+    }
+
+    /**
+     * Parses string on demand: values of objects and arrays are decoded when first accessed (see {@link JSONLazyParser}).
+     * The result is not thread-safe even for reading and keeps the whole input in memory:
+     * use {@link JSONLazyParser#materialize(Object)} for values which are shared between threads or cached.
+     */
+    public Object parseLazy(String json) {
+        return new JSONLazyParser(options, json).parse();
+    }
+
+    // Parallel parsing
+
+    /**
+     * Parses large document in parallel using {@link ForkJoinPool#commonPool()}: elements of the top-level array
+     * (or fields of the top-level object) are parsed in parallel.
+     * Value factory of the options must be thread-safe (see {@link JSONParallelParser}).
+     */
+    public Object parseParallel(String json) {
+        return parseParallel(json, ForkJoinPool.commonPool(), 1);
+    }
+
+    /**
+     * Parses large document in parallel; value factory of the options must be thread-safe
+     *
+     * @param splitDepth depth of values to parse in parallel: 1 for elements/fields of the top-level array/object,
+     *                   2 for their elements/fields, and so on
+     */
+    public Object parseParallel(String json, ForkJoinPool pool, int splitDepth) {
+        return new JSONParallelParser(options, json, pool, splitDepth).parse();
+    }
+
+    private static Stream<Object> stream(Iterator<Object> values, boolean ordered) {
+        int characteristics = ordered ? Spliterator.ORDERED : 0;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(values, characteristics), false);
+    }
+
+    /**
+     * Files are decoded strictly, as by {@link java.nio.file.Files#newBufferedReader}: malformed UTF-8 throws
+     * {@link java.nio.charset.MalformedInputException} (wrapped into {@link java.io.UncheckedIOException} while parsing)
+     */
+    private static FastMappedReader mapped(FileChannel channel) throws IOException {
+        return new FastMappedReader(channel, FastMappedReader.CHUNK_SIZE, true);
+    }
+
+    private static void closeChannel(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Array streaming
+
+    /**
+     * Parses elements of the top-level array lazily one by one
+     */
+    public Stream<Object> streamArray(FastReader rdr) {
+        JSONStreamReader reader = newStreamReader(rdr);
+        reader.nextValue();
+        return stream(reader.iterateArray(), true);
+    }
+
+    public Stream<Object> streamArray(Reader rdr) {
+        return streamArray(toFast(rdr));
+    }
+
+    public Stream<Object> streamArray(InputStream is) {
+        return streamArray(toFast(is));
+    }
+
+    /**
+     * File is closed when the stream is closed
+     */
+    public Stream<Object> streamArray(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return streamArray(mapped(channel)).onClose(() -> closeChannel(channel));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    // JSON Lines
+
+    private static Stream<Object> linesStream(JSONLinesReader reader, boolean ordered) {
+        return stream(reader, ordered).onClose(reader::close);
+    }
+
+    /**
+     * Parses JSON Lines input (one value per line) lazily
+     */
+    public Stream<Object> parseLines(FastReader rdr) {
+        return linesStream(new JSONLinesReader(options, rdr), true);
+    }
+
+    public Stream<Object> parseLines(Reader rdr) {
+        return parseLines(toFast(rdr));
+    }
+
+    public Stream<Object> parseLines(InputStream is) {
+        return parseLines(toFast(is));
+    }
+
+    /**
+     * File is closed when the stream is closed
+     */
+    public Stream<Object> parseLines(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return parseLines(mapped(channel)).onClose(() -> closeChannel(channel));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Parses JSON Lines input in parallel: input is read by the calling thread and cut into chunks of lines,
+     * which are parsed by the executor, so value factory of the options must be thread-safe.
+     *
+     * @param ordered if values should be returned in the input order
+     */
+    public Stream<Object> parseLinesParallel(FastReader rdr, ExecutorService executor, boolean ordered) {
+        return linesStream(new JSONLinesReader(options, rdr, executor, ordered), ordered);
+    }
+
+    /**
+     * Parses JSON Lines input in parallel using {@link ForkJoinPool#commonPool()}
+     *
+     * @param ordered if values should be returned in the input order
+     */
+    public Stream<Object> parseLinesParallel(FastReader rdr, boolean ordered) {
+        return parseLinesParallel(rdr, ForkJoinPool.commonPool(), ordered);
+    }
+
+    public Stream<Object> parseLinesParallel(Reader rdr, boolean ordered) {
+        return parseLinesParallel(toFast(rdr), ordered);
+    }
+
+    public Stream<Object> parseLinesParallel(InputStream is, boolean ordered) {
+        return parseLinesParallel(toFast(is), ordered);
+    }
+
+    /**
+     * File is closed when the stream is closed
+     */
+    public Stream<Object> parseLinesParallel(Path file, boolean ordered) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return parseLinesParallel(mapped(channel), ordered).onClose(() -> closeChannel(channel));
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
         }
     }
 }
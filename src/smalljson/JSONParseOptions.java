@@ -9,17 +9,35 @@ public final class JSONParseOptions {
     public final Set<JSONFeature> features;
     public final JSONValueFactory valueFactory;
     public final int maxNestingLevel;
+    /**
+     * Cache for object keys, can be null
+     */
+    public final JSONStringCache keyCache;
+    /**
+     * Cache for string values, can be null
+     */
+    public final JSONStringCache valueCache;
+    /**
+     * Size of the read buffer (in chars) of {@link JSONFactory} parse methods
+     */
+    public final int bufferSize;
 
     private JSONParseOptions(Set<JSONFeature> features,
                              JSONValueFactory valueFactory,
-                             int maxNestingLevel) {
+                             int maxNestingLevel,
+                             JSONStringCache keyCache,
+                             JSONStringCache valueCache,
+                             int bufferSize) {
         this.features = Collections.unmodifiableSet(features);
         this.valueFactory = valueFactory;
         this.maxNestingLevel = maxNestingLevel;
+        this.keyCache = keyCache;
+        this.valueCache = valueCache;
+        this.bufferSize = bufferSize;
     }
 
     public Builder copy() {
-        return new Builder(features, valueFactory, maxNestingLevel);
+        return new Builder(features, valueFactory, maxNestingLevel).keyCache(keyCache).valueCache(valueCache).bufferSize(bufferSize);
     }
 
     public static Builder builder() {
@@ -31,6 +49,9 @@ public final class JSONParseOptions {
         private final Set<JSONFeature> features = EnumSet.noneOf(JSONFeature.class);
         private JSONValueFactory valueFactory;
         private int maxNestingLevel;
+        private JSONStringCache keyCache = null;
+        private JSONStringCache valueCache = null;
+        private int bufferSize = 8192;
 
         public Builder() {
             valueFactory = JSONValueFactory.DEFAULT;
@@ -81,13 +102,62 @@ public final class JSONParseOptions {
             return this;
         }
 
+        /**
+         * Stores objects in {@link JSONCompactMap}s: sets value factory to {@link JSONValueFactory#COMPACT}
+         */
+        public Builder compactObjects() {
+            return valueFactory(JSONValueFactory.COMPACT);
+        }
+
+        /**
+         * Stores arrays in {@link JSONCompactList}s: sets value factory to {@link JSONValueFactory#COMPACT_ARRAYS}
+         */
+        public Builder compactArrays() {
+            return valueFactory(JSONValueFactory.COMPACT_ARRAYS);
+        }
+
+        /**
+         * Stores objects in {@link JSONCompactMap}s and arrays in {@link JSONCompactList}s:
+         * sets value factory to {@link JSONValueFactory#COMPACT_VALUES}
+         */
+        public Builder compactValues() {
+            return valueFactory(JSONValueFactory.COMPACT_VALUES);
+        }
+
         public Builder maxNestingLevel(int maxNestingLevel) {
             this.maxNestingLevel = maxNestingLevel;
             return this;
         }
 
+        /**
+         * Sets cache for object keys; the same cache can be shared by multiple options
+         */
+        public Builder keyCache(JSONStringCache keyCache) {
+            this.keyCache = keyCache;
+            return this;
+        }
+
+        /**
+         * Sets cache for string values (disabled by default); only short values are cached
+         * (see {@link JSONStringCache#JSONStringCache(int, int)})
+         */
+        public Builder valueCache(JSONStringCache valueCache) {
+            this.valueCache = valueCache;
+            return this;
+        }
+
+        /**
+         * Sets size of the read buffer (8192 chars by default)
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 16)
+                throw new IllegalArgumentException("Buffer size is too small: " + bufferSize);
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
         public JSONParseOptions buildOptions() {
-            return new JSONParseOptions(features, valueFactory, maxNestingLevel);
+            return new JSONParseOptions(features, valueFactory, maxNestingLevel, keyCache, valueCache, bufferSize);
         }
 
         public JSONFactory build() {
@@ -0,0 +1,115 @@
+package smalljson;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of strings, which can be shared between parsers (and threads) to deduplicate object keys
+ * ({@link JSONParseOptions.Builder#keyCache(JSONStringCache)}) or short string values
+ * ({@link JSONParseOptions.Builder#valueCache(JSONStringCache)}).
+ * Parsed values with the same strings reuse the same {@code String} instances, and in the
+ * best case strings are not created at all.
+ * <p>
+ * Cache is a fixed-size hash table where the new string replaces (evicts) the old one on collision.
+ * It is thread-safe without locking since strings are immutable and safely published.
+ */
+public final class JSONStringCache {
+
+    private final String[] table;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity  number of cached strings (rounded up to the power of 2)
+     * @param maxLength longer strings are not cached
+     */
+    public JSONStringCache(int capacity, int maxLength) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    public JSONStringCache(int capacity) {
+        this(capacity, 64);
+    }
+
+    public JSONStringCache() {
+        this(1024);
+    }
+
+    private int index(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Returns cached string equal to the given chars or creates and caches a new one.
+     *
+     * @param hash hash of the chars, same as {@link String#hashCode()}
+     */
+    public String intern(char[] chars, int offset, int length, int hash) {
+        if (length > maxLength)
+            return new String(chars, offset, length);
+        int i = index(hash);
+        String cached = table[i];
+        if (cached != null && cached.length() == length && matches(cached, chars, offset)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        String str = new String(chars, offset, length);
+        table[i] = str;
+        return str;
+    }
+
+    /**
+     * Returns cached string equal to the given one or caches it.
+     */
+    public String intern(String str) {
+        if (str.length() > maxLength)
+            return str;
+        int i = index(str.hashCode());
+        String cached = table[i];
+        if (str.equals(cached)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        table[i] = str;
+        return str;
+    }
+
+    private static boolean matches(String cached, char[] chars, int offset) {
+        for (int i = 0; i < cached.length(); i++) {
+            if (cached.charAt(i) != chars[offset + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return number of lookups which found the cached string
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups which did not find the cached string (strings longer than max length are not counted)
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Clears cache and resets counters
+     */
+    public void clear() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = null;
+        }
+        hits.reset();
+        misses.reset();
+    }
+}
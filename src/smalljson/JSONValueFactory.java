@@ -9,6 +9,73 @@ import java.util.Map;
 public class JSONValueFactory {
 
     public static final JSONValueFactory DEFAULT = new JSONValueFactory();
+    /**
+     * Same as {@link #DEFAULT}, but objects are stored in {@link JSONCompactMap}s, which take less memory
+     */
+    public static final JSONValueFactory COMPACT = new JSONValueFactory() {
+
+        @Override
+        public Map<String, Object> objectValue() {
+            return new JSONCompactMap();
+        }
+    };
+    /**
+     * Same as {@link #DEFAULT}, but arrays are stored in {@link JSONCompactList}s, which take less memory
+     */
+    public static final JSONValueFactory COMPACT_ARRAYS = new JSONValueFactory() {
+
+        @Override
+        public List<Object> arrayValue() {
+            return new JSONCompactList();
+        }
+    };
+    /**
+     * Same as {@link #DEFAULT}, but objects are stored in {@link JSONCompactMap}s and arrays in {@link JSONCompactList}s
+     */
+    public static final JSONValueFactory COMPACT_VALUES = new JSONValueFactory() {
+
+        @Override
+        public Map<String, Object> objectValue() {
+            return new JSONCompactMap();
+        }
+
+        @Override
+        public List<Object> arrayValue() {
+            return new JSONCompactList();
+        }
+    };
+
+    private final boolean textIntValue;
+    private final boolean textFloatValue;
+
+    public JSONValueFactory() {
+        this.textIntValue = isOverridden("intValue", int.class, String.class) && !isOverridden("longValue", long.class);
+        this.textFloatValue = isOverridden("floatValue", String.class) && !isOverridden("doubleValue", double.class);
+    }
+
+    private boolean isOverridden(String method, Class<?>... parameterTypes) {
+        try {
+            return getClass().getMethod(method, parameterTypes).getDeclaringClass() != JSONValueFactory.class;
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @return true if parser calls {@link #intValue(int, String)} for all integer numbers
+     * (when it is overridden and {@link #longValue(long)} is not)
+     */
+    public final boolean usesTextIntValue() {
+        return textIntValue;
+    }
+
+    /**
+     * @return true if parser calls {@link #floatValue(String)} for all floating point numbers
+     * (when it is overridden and {@link #doubleValue(double)} is not)
+     */
+    public final boolean usesTextFloatValue() {
+        return textFloatValue;
+    }
 
     public Object nanValue() {
         return Double.NaN;
@@ -37,7 +104,21 @@ public class JSONValueFactory {
     }
 
     /**
-     * Value for: "123"/"+123", "-123"
+     * Value for integers which fit into {@code long}, parser calls it without creating a digit string.
+     *
+     * @see #usesTextIntValue()
+     */
+    public Object longValue(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Value for: "123"/"+123", "-123".
+     * Is called by parser only for integers which do not fit into {@code long}, unless {@link #usesTextIntValue()}.
      *
      * @param sign +1/-1 (never 0)
      */
@@ -60,6 +141,18 @@ public class JSONValueFactory {
         }
     }
 
+    /**
+     * Value for floating point numbers, parser calls it without creating a number string.
+     *
+     * @see #usesTextFloatValue()
+     */
+    public Object doubleValue(double value) {
+        return value;
+    }
+
+    /**
+     * Is called by parser only if {@link #usesTextFloatValue()}
+     */
     public Object floatValue(String str) {
         return Double.valueOf(str);
     }
@@ -76,7 +169,33 @@ public class JSONValueFactory {
         return new LinkedHashMap<>();
     }
 
+    /**
+     * Is called by parser when all fields of the map created by {@link #objectValue()} are parsed.
+     * By default trims {@link JSONCompactMap} to its size.
+     *
+     * @return map for {@link JSONObject}
+     */
+    public Map<String, Object> completeObject(Map<String, Object> object) {
+        if (object instanceof JSONCompactMap) {
+            ((JSONCompactMap) object).trimToSize();
+        }
+        return object;
+    }
+
     public List<Object> arrayValue() {
         return new ArrayList<>();
     }
+
+    /**
+     * Is called by parser when all elements of the list created by {@link #arrayValue()} are parsed.
+     * By default trims {@link JSONCompactList} to its size.
+     *
+     * @return list for {@link JSONArray}
+     */
+    public List<Object> completeArray(List<Object> array) {
+        if (array instanceof JSONCompactList) {
+            ((JSONCompactList) array).trimToSize();
+        }
+        return array;
+    }
 }
@@ -6,6 +6,8 @@ import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
 
 public final class JSONWriter {
 
@@ -116,58 +118,92 @@ public final class JSONWriter {
         }
     }
 
-    private boolean arrayFitsLine(int size, Iterable<?> collection) {
+    private interface ItemWriter<T> {
+
+        void write(int nestingLevel, T item) throws IOException;
+    }
+
+    private <T> boolean arrayFitsLine(int size, Iterable<? extends T> items, ToIntFunction<T> itemLen) {
         if (arrayLineLimit <= 0)
             return false;
         if (size * (lineComma.length() + 1) > arrayLineLimit)
             return false;
         int sum = 0;
-        for (Object item : collection) {
-            int itemLen = arrayItemLen(item);
-            if (itemLen < 0)
+        for (T item : items) {
+            int len = itemLen.applyAsInt(item);
+            if (len < 0)
                 return false;
             if (sum > 0) {
                 sum += lineComma.length();
             }
-            sum += itemLen;
+            sum += len;
             if (sum > arrayLineLimit)
                 return false;
         }
         return true;
     }
 
-    private void writeArray(int nestingLevel, int size, Iterable<?> collection) throws IOException {
+    /**
+     * @param itemLen returns length of the item on a single line, or -1 if it cannot be written on a single line
+     */
+    private <T> void writeArray(int nestingLevel, int size, Iterable<? extends T> items,
+                                ToIntFunction<T> itemLen, ItemWriter<T> itemWriter) throws IOException {
         if (size <= 0) {
             print("[]");
-        } else if (arrayFitsLine(size, collection)) {
+        } else if (arrayFitsLine(size, items, itemLen)) {
             print("[");
             boolean first = true;
-            for (Object item : collection) {
+            for (T item : items) {
                 if (first) {
                     first = false;
                 } else {
                     print(lineComma);
                 }
-                write(nestingLevel + 1, item);
+                itemWriter.write(nestingLevel + 1, item);
             }
             print("]");
         } else {
             println("[");
             boolean first = true;
-            for (Object item : collection) {
+            for (T item : items) {
                 if (first) {
                     first = false;
                 } else {
                     println(comma);
                 }
                 print(nestingLevel + 1, "");
-                write(nestingLevel + 1, item);
+                itemWriter.write(nestingLevel + 1, item);
             }
             println("");
             print(nestingLevel, "]");
         }
     }
 
+    private void writeArray(int nestingLevel, int size, Iterable<?> collection) throws IOException {
+        writeArray(nestingLevel, size, collection, JSONWriter::arrayItemLen, this::write);
+    }
+
+    /**
+     * Writes list of numbers kept in a primitive array without boxing them
+     */
+    private void writeNumbers(int nestingLevel, JSONCompactList numbers) throws IOException {
+        int size = numbers.size();
+        Iterable<String> texts = () -> new IndexIterator<>(size, numbers::numberText);
+        writeArray(nestingLevel, size, texts, String::length, (level, text) -> print(text));
+    }
+
+    /**
+     * @return list of numbers kept in a primitive array, or null
+     */
+    private static JSONCompactList numbers(Object list) {
+        if (list instanceof JSONCompactList) {
+            JSONCompactList compact = (JSONCompactList) list;
+            if (compact.isNumbers())
+                return compact;
+        }
+        return null;
+    }
+
     private static void unicodeEscape(StringBuilder buf, char ch) {
         String hex = Integer.toHexString(ch);
         buf.append("\\u").append("0000", 0, 4 - hex.length()).append(hex);
@@ -218,13 +254,23 @@ public final class JSONWriter {
             writeObject(nestingLevel, map.isEmpty(), map.entrySet());
         } else if (value instanceof JSONArray) {
             JSONArray array = (JSONArray) value;
-            writeArray(nestingLevel, array.length(), array);
+            JSONCompactList numbers = numbers(array.toList());
+            if (numbers != null) {
+                writeNumbers(nestingLevel, numbers);
+            } else {
+                writeArray(nestingLevel, array.length(), array);
+            }
         } else if (value instanceof Collection) {
             Collection<?> collection = (Collection<?>) value;
-            writeArray(nestingLevel, collection.size(), collection);
+            JSONCompactList numbers = numbers(collection);
+            if (numbers != null) {
+                writeNumbers(nestingLevel, numbers);
+            } else {
+                writeArray(nestingLevel, collection.size(), collection);
+            }
         } else if (value.getClass().isArray()) {
             int length = Array.getLength(value);
-            writeArray(nestingLevel, length, () -> new ArrayIterator(value, length));
+            writeArray(nestingLevel, length, () -> new IndexIterator<>(length, i -> Array.get(value, i)));
         } else if (value instanceof Boolean) {
             Boolean bool = (Boolean) value;
             print(bool.toString());
@@ -243,15 +289,15 @@ public final class JSONWriter {
         write(0, obj);
     }
 
-    private static final class ArrayIterator implements Iterator<Object> {
+    private static final class IndexIterator<T> implements Iterator<T> {
 
-        private final Object array;
         private final int length;
+        private final IntFunction<T> get;
         private int i = 0;
 
-        ArrayIterator(Object array, int length) {
-            this.array = array;
+        IndexIterator(int length, IntFunction<T> get) {
             this.length = length;
+            this.get = get;
         }
 
         @Override
@@ -260,8 +306,8 @@ public final class JSONWriter {
         }
 
         @Override
-        public Object next() {
-            return Array.get(array, i++);
+        public T next() {
+            return get.apply(i++);
         }
     }
 }
@@ -0,0 +1,134 @@
+package smalljson;
+
+import smalljson.parser.FastBufferedReader;
+import smalljson.parser.FastByteBufferReader;
+import smalljson.parser.FastChannelReader;
+import smalljson.parser.FastReader;
+import smalljson.parser.FastStringReader;
+import smalljson.parser.FastUtf8Reader;
+import smalljson.parser.JSONParser;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Parsers with their read buffers reused by {@link JSONFactory} parse methods, so that parsing
+ * of small documents does not allocate them every time.
+ * The pool is bounded and has no per-thread state (which would grow with the number of virtual threads):
+ * a thread takes a parser from the slot chosen by the thread id, or creates a new one if the slot is empty.
+ */
+final class ParserPool {
+
+    private static final int SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    final class Entry {
+
+        private final FastStringReader stringReader = new FastStringReader(options.bufferSize);
+        private FastBufferedReader reader = null;
+        private FastUtf8Reader streamReader = null;
+        private FastByteBufferReader bufferReader = null;
+        private FastChannelReader channelReader = null;
+        private JSONParser parser = null;
+
+        FastReader string(String json) {
+            stringReader.reset(json);
+            return stringReader;
+        }
+
+        FastReader reader(Reader rdr) {
+            if (reader == null) {
+                reader = new FastBufferedReader(rdr, options.bufferSize);
+            } else {
+                reader.reset(rdr);
+            }
+            return reader;
+        }
+
+        FastReader stream(InputStream is) {
+            if (streamReader == null) {
+                streamReader = new FastUtf8Reader(is, options.bufferSize);
+            } else {
+                streamReader.reset(is);
+            }
+            return streamReader;
+        }
+
+        FastReader buffer(ByteBuffer buffer) {
+            if (bufferReader == null) {
+                bufferReader = new FastByteBufferReader(options.bufferSize);
+            }
+            bufferReader.reset(buffer);
+            return bufferReader;
+        }
+
+        FastReader channel(ReadableByteChannel channel) {
+            if (channelReader == null) {
+                channelReader = new FastChannelReader(channel, options.bufferSize);
+            } else {
+                channelReader.reset(channel);
+            }
+            return channelReader;
+        }
+
+        private JSONParser parser(FastReader rdr) {
+            if (parser == null) {
+                parser = new JSONParser(options, rdr);
+            } else {
+                parser.reset(rdr);
+            }
+            return parser;
+        }
+
+        /**
+         * Drops references to the input, so that pooled parsers do not keep it from garbage collection
+         */
+        private void clear() {
+            stringReader.reset("");
+            if (reader != null) {
+                reader.reset(null);
+            }
+            if (streamReader != null) {
+                streamReader.reset(null);
+            }
+            if (bufferReader != null) {
+                bufferReader.reset(EMPTY);
+            }
+            if (channelReader != null) {
+                channelReader.reset(null);
+            }
+            if (parser != null) {
+                parser.reset(stringReader);
+            }
+        }
+    }
+
+    private final JSONParseOptions options;
+    private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(SIZE);
+
+    ParserPool(JSONParseOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * @param input creates reader of the input, possibly reusing readers of the entry
+     * @param parse parses the input with the (reused) parser
+     */
+    <T> T parse(Function<Entry, FastReader> input, Function<JSONParser, T> parse) {
+        int slot = (int) (Thread.currentThread().getId() % SIZE);
+        Entry entry = slots.getAndSet(slot, null);
+        if (entry == null) {
+            entry = new Entry();
+        }
+        try {
+            return parse.apply(entry.parser(input.apply(entry)));
+        } finally {
+            entry.clear();
+            slots.compareAndSet(slot, null, entry);
+        }
+    }
+}
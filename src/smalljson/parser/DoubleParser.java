@@ -0,0 +1,133 @@
+package smalljson.parser;
+
+import java.math.BigInteger;
+
+/**
+ * Converts decimal mantissa and exponent to the correctly rounded double (same as {@link Double#parseDouble(String)})
+ * using Clinger's fast path and Eisel-Lemire algorithm.
+ * Returns NaN if the result cannot be determined; then caller should fall back to {@link Double#parseDouble(String)}.
+ */
+final class DoubleParser {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+
+    /**
+     * 128-bit truncated approximations of 5^q for q in [SMALLEST_POWER, LARGEST_POWER]:
+     * high 64 bits at [2 * i], low 64 bits at [2 * i + 1]
+     */
+    private static final long[] POWERS_OF_FIVE = powersOfFive();
+
+    private static long[] powersOfFive() {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        long[] table = new long[2 * (LARGEST_POWER - SMALLEST_POWER + 1)];
+        for (int q = SMALLEST_POWER; q <= LARGEST_POWER; q++) {
+            BigInteger c;
+            if (q < 0) {
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) {
+                    c = c.shiftRight(1);
+                }
+            } else {
+                BigInteger power5 = BigInteger.valueOf(5).pow(q);
+                int shift = 128 - power5.bitLength();
+                c = shift >= 0 ? power5.shiftLeft(shift) : power5.shiftRight(-shift);
+            }
+            int i = 2 * (q - SMALLEST_POWER);
+            table[i] = c.shiftRight(64).longValue();
+            table[i + 1] = c.longValue();
+        }
+        return table;
+    }
+
+    private DoubleParser() {
+    }
+
+    /**
+     * @param mantissa   up to 19 decimal digits (as unsigned long)
+     * @param exponent   decimal exponent
+     * @param truncated  if mantissa has more digits than 19 which are dropped;
+     *                   then the number lies between {@code mantissa * 10^exponent} and {@code (mantissa + 1) * 10^exponent}
+     * @return non-negative double or NaN if cannot be computed
+     */
+    static double toDouble(long mantissa, int exponent, boolean truncated) {
+        if (mantissa == 0)
+            return 0.0;
+        if (!truncated) {
+            if (mantissa > 0 && mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+                // Both mantissa and power of ten are exact doubles, so the result is correctly rounded:
+                double value = mantissa;
+                return exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+            }
+            return eiselLemire(mantissa, exponent);
+        }
+        double lower = eiselLemire(mantissa, exponent);
+        double upper = eiselLemire(mantissa + 1, exponent);
+        return lower == upper ? lower : Double.NaN;
+    }
+
+    private static double eiselLemire(long mantissa, int exponent) {
+        if (exponent < SMALLEST_POWER || exponent > LARGEST_POWER)
+            return Double.NaN;
+        int i = 2 * (exponent - SMALLEST_POWER);
+        long factorHigh = POWERS_OF_FIVE[i];
+        long factorLow = POWERS_OF_FIVE[i + 1];
+        int lz = Long.numberOfLeadingZeros(mantissa);
+        long w = mantissa << lz;
+        long lower = w * factorHigh;
+        long upper = multiplyHigh(w, factorHigh);
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + w, lower) < 0) {
+            long productLow = w * factorLow;
+            long productMiddle2 = multiplyHigh(w, factorLow);
+            long productMiddle = lower + productMiddle2;
+            long productHigh = upper;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                productHigh++;
+            }
+            if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF && Long.compareUnsigned(productLow + w, productLow) < 0)
+                return Double.NaN;
+            upper = productHigh;
+            lower = productMiddle;
+        }
+        long upperBit = upper >>> 63;
+        long bits = upper >>> (upperBit + 9);
+        lz += (int) (1 ^ upperBit);
+        if (lower == 0 && (upper & 0x1FF) == 0 && (bits & 3) == 1)
+            return Double.NaN;
+        bits += bits & 1;
+        bits >>>= 1;
+        if (bits >= (1L << 53)) {
+            bits = 1L << 52;
+            lz--;
+        }
+        bits &= ~(1L << 52);
+        long realExponent = (((152170L + 65536L) * exponent) >> 16) + 1024 + 63 - lz;
+        if (realExponent < 1 || realExponent > 2046)
+            return Double.NaN;
+        return Double.longBitsToDouble(bits | (realExponent << 52));
+    }
+
+    /**
+     * Unsigned high 64 bits of 128-bit product (Math.multiplyHigh is not available in Java 8 and is signed)
+     */
+    private static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p11 = x1 * y1;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long p00 = x0 * y0;
+        long middle = p10 + (p00 >>> 32) + (p01 & 0xFFFFFFFFL);
+        return p11 + (middle >>> 32) + (p01 >>> 32);
+    }
+}
@@ -5,26 +5,36 @@ import java.io.Reader;
 
 public final class FastBufferedReader extends FastReader {
 
-    private final Reader input;
-    private final char[] buf = new char[8192];
-
-    private int pos = 0;
-    private int len = 0;
+    private Reader input;
 
     public FastBufferedReader(Reader input) {
+        this(input, 8192);
+    }
+
+    public FastBufferedReader(Reader input, int bufferSize) {
+        this.input = input;
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * Starts reading another input, reusing the buffer
+     */
+    public void reset(Reader input) {
         this.input = input;
+        this.pos = 0;
+        this.len = 0;
     }
 
     @Override
-    public int read() throws IOException {
-        if (pos >= len) {
-            pos = 0;
-            do {
-                len = input.read(buf);
-            } while (len == 0);
-            if (len < 0)
-                return -1;
-        }
-        return buf[pos++];
+    protected boolean fill() throws IOException {
+        int count;
+        do {
+            count = input.read(buf);
+        } while (count == 0);
+        if (count < 0)
+            return false;
+        pos = 0;
+        len = count;
+        return true;
     }
 }
@@ -0,0 +1,52 @@
+package smalljson.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads UTF-8 encoded bytes between position and limit of a heap or direct buffer.
+ * Position of the original buffer is not changed.
+ */
+public final class FastByteBufferReader extends FastByteReader {
+
+    private ByteBuffer source;
+
+    public FastByteBufferReader(ByteBuffer buffer) {
+        super(Math.min(buffer.remaining() + 1, 8192));
+        this.source = buffer.duplicate();
+        this.bytes = buffer.duplicate();
+    }
+
+    /**
+     * Creates reader without input (see {@link #reset(ByteBuffer)}) with the buffer of the given size
+     */
+    public FastByteBufferReader(int bufferSize) {
+        super(bufferSize);
+        this.source = ByteBuffer.allocate(0);
+        this.bytes = source;
+    }
+
+    /**
+     * Starts reading another buffer, reusing the char buffer
+     */
+    public void reset(ByteBuffer buffer) {
+        this.source = buffer.duplicate();
+        this.bytes = buffer.duplicate();
+        this.pos = 0;
+        this.len = 0;
+    }
+
+    @Override
+    protected boolean fillBytes() {
+        return false;
+    }
+
+    @Override
+    protected boolean canReopen() {
+        return true;
+    }
+
+    @Override
+    protected FastReader reopen() {
+        return new FastByteBufferReader(source);
+    }
+}
@@ -0,0 +1,149 @@
+package smalljson.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+
+/**
+ * Base class for readers of UTF-8 encoded bytes.
+ * Bytes are decoded without {@link java.nio.charset.CharsetDecoder}: ASCII bytes (which include all JSON syntax)
+ * are copied as is, multi-byte sequences can occur only inside strings (and comments) and are decoded there.
+ * Malformed sequences are replaced with U+FFFD, or cause {@link MalformedInputException} for strict readers.
+ */
+public abstract class FastByteReader extends FastReader {
+
+    private static final char REPLACEMENT = 0xFFFD;
+
+    /**
+     * Undecoded bytes are {@code bytes.position()..bytes.limit()}
+     */
+    protected ByteBuffer bytes;
+    private final boolean strict;
+
+    protected FastByteReader(int bufferSize) {
+        this(bufferSize, false);
+    }
+
+    /**
+     * @param strict if true then malformed input throws {@link MalformedInputException} instead of being replaced
+     */
+    protected FastByteReader(int bufferSize, boolean strict) {
+        this.buf = new char[bufferSize];
+        this.strict = strict;
+    }
+
+    protected final boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Is called when all bytes are consumed ({@code !bytes.hasRemaining()}).
+     * Should make the next portion of input available in {@code bytes}.
+     *
+     * @return false if there is no more input
+     */
+    protected abstract boolean fillBytes() throws IOException;
+
+    private int continuation(int lo, int hi) throws IOException {
+        if (!bytes.hasRemaining() && !fillBytes())
+            return -1;
+        int p = bytes.position();
+        int b = bytes.get(p) & 0xFF;
+        if (b < lo || b > hi)
+            return -1;
+        bytes.position(p + 1);
+        return b & 0x3F;
+    }
+
+    /**
+     * Decodes multi-byte sequence starting with {@code b1} into {@code buf[n]} (and {@code buf[n + 1]}).
+     *
+     * @return number of chars written
+     */
+    private int decode(int b1, int n) throws IOException {
+        if (b1 >= 0xC2 && b1 <= 0xDF) {
+            int c2 = continuation(0x80, 0xBF);
+            if (c2 >= 0) {
+                buf[n] = (char) (((b1 & 0x1F) << 6) | c2);
+                return 1;
+            }
+        } else if (b1 >= 0xE0 && b1 <= 0xEF) {
+            int c2 = continuation(b1 == 0xE0 ? 0xA0 : 0x80, b1 == 0xED ? 0x9F : 0xBF);
+            int c3 = c2 < 0 ? -1 : continuation(0x80, 0xBF);
+            if (c3 >= 0) {
+                buf[n] = (char) (((b1 & 0x0F) << 12) | (c2 << 6) | c3);
+                return 1;
+            }
+        } else if (b1 >= 0xF0 && b1 <= 0xF4) {
+            int c2 = continuation(b1 == 0xF0 ? 0x90 : 0x80, b1 == 0xF4 ? 0x8F : 0xBF);
+            int c3 = c2 < 0 ? -1 : continuation(0x80, 0xBF);
+            int c4 = c3 < 0 ? -1 : continuation(0x80, 0xBF);
+            if (c4 >= 0) {
+                int cp = ((b1 & 0x07) << 18) | (c2 << 12) | (c3 << 6) | c4;
+                buf[n] = Character.highSurrogate(cp);
+                buf[n + 1] = Character.lowSurrogate(cp);
+                return 2;
+            }
+        }
+        if (strict)
+            throw new MalformedInputException(1);
+        buf[n] = REPLACEMENT;
+        return 1;
+    }
+
+    /**
+     * Copies ASCII run to {@code buf[n..]}
+     *
+     * @return new value of {@code n}
+     */
+    private int copyAscii(int n, int count) {
+        int p = bytes.position();
+        int end = p + count;
+        if (bytes.hasArray()) {
+            byte[] array = bytes.array();
+            int offset = bytes.arrayOffset();
+            while (p < end) {
+                byte b = array[offset + p];
+                if (b < 0)
+                    break;
+                buf[n++] = (char) b;
+                p++;
+            }
+        } else {
+            while (p < end) {
+                byte b = bytes.get(p);
+                if (b < 0)
+                    break;
+                buf[n++] = (char) b;
+                p++;
+            }
+        }
+        bytes.position(p);
+        return n;
+    }
+
+    @Override
+    protected final boolean fill() throws IOException {
+        // Leave room for a surrogate pair:
+        int limit = buf.length - 1;
+        int n = 0;
+        while (n < limit) {
+            if (!bytes.hasRemaining()) {
+                if (n > 0 || !fillBytes())
+                    break;
+            }
+            int count = Math.min(bytes.remaining(), limit - n);
+            int start = n;
+            n = copyAscii(n, count);
+            if (n - start < count) {
+                int b1 = bytes.get() & 0xFF;
+                n += decode(b1, n);
+            }
+        }
+        if (n <= 0)
+            return false;
+        pos = 0;
+        len = n;
+        return true;
+    }
+}
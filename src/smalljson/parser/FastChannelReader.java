@@ -0,0 +1,63 @@
+package smalljson.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+/**
+ * Reads UTF-8 encoded bytes from a blocking channel through a reusable direct buffer.
+ * Non-blocking channels are not supported (reading them would spin until input arrives):
+ * use {@link JSONPushParser} for them.
+ */
+public final class FastChannelReader extends FastByteReader {
+
+    private ReadableByteChannel channel;
+
+    /**
+     * @throws IllegalBlockingModeException if the channel is in non-blocking mode
+     */
+    public FastChannelReader(ReadableByteChannel channel) {
+        this(channel, 8192);
+    }
+
+    /**
+     * @throws IllegalBlockingModeException if the channel is in non-blocking mode
+     */
+    public FastChannelReader(ReadableByteChannel channel, int bufferSize) {
+        super(bufferSize);
+        this.channel = checkBlocking(channel);
+        this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        this.bytes.limit(0);
+    }
+
+    private static ReadableByteChannel checkBlocking(ReadableByteChannel channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+            throw new IllegalBlockingModeException();
+        return channel;
+    }
+
+    /**
+     * Starts reading another channel, reusing the buffers
+     *
+     * @throws IllegalBlockingModeException if the channel is in non-blocking mode
+     */
+    public void reset(ReadableByteChannel channel) {
+        this.channel = checkBlocking(channel);
+        this.bytes.limit(0);
+        this.pos = 0;
+        this.len = 0;
+    }
+
+    @Override
+    protected boolean fillBytes() throws IOException {
+        bytes.clear();
+        int count;
+        do {
+            count = channel.read(bytes);
+        } while (count == 0);
+        bytes.flip();
+        return count > 0;
+    }
+}
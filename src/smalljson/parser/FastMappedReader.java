@@ -0,0 +1,67 @@
+package smalljson.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads UTF-8 encoded file mapped into memory, so no heap-side byte buffer is used.
+ * Files larger than chunk size ({@link #CHUNK_SIZE} by default) are mapped chunk by chunk.
+ * Malformed UTF-8 is replaced with U+FFFD unless the reader is strict.
+ * Closing the channel is the caller's responsibility.
+ */
+public final class FastMappedReader extends FastByteReader {
+
+    public static final int CHUNK_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final long start;
+    private final long size;
+    private long offset;
+
+    private FastMappedReader(FileChannel channel, int chunkSize, boolean strict, long start, long size) {
+        super(8192, strict);
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+        this.start = start;
+        this.size = size;
+        this.offset = start;
+        this.bytes = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * @param strict if true then malformed input throws {@link java.nio.charset.MalformedInputException}
+     */
+    public FastMappedReader(FileChannel channel, int chunkSize, boolean strict) throws IOException {
+        this(channel, chunkSize, strict, channel.position(), channel.size());
+    }
+
+    public FastMappedReader(FileChannel channel, int chunkSize) throws IOException {
+        this(channel, chunkSize, false);
+    }
+
+    public FastMappedReader(FileChannel channel) throws IOException {
+        this(channel, CHUNK_SIZE);
+    }
+
+    @Override
+    protected boolean fillBytes() throws IOException {
+        if (offset >= size)
+            return false;
+        long chunk = Math.min(size - offset, chunkSize);
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, chunk);
+        offset += chunk;
+        return true;
+    }
+
+    @Override
+    protected boolean canReopen() {
+        return true;
+    }
+
+    @Override
+    protected FastReader reopen() {
+        return new FastMappedReader(channel, chunkSize, isStrict(), start, size);
+    }
+}
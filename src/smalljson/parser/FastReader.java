@@ -2,7 +2,109 @@ package smalljson.parser;
 
 import java.io.IOException;
 
+/**
+ * Source of characters for {@link JSONLexer}.
+ * Characters are available in a window {@code buf[pos..len)} which is scanned directly by the lexer;
+ * when the window is exhausted {@link #fill()} replaces it with the next portion of input.
+ * <p>
+ * Subclasses may instead override only {@link #read()}: then the lexer reads their input one character at a time.
+ */
 public abstract class FastReader {
 
-    public abstract int read() throws IOException;
+    private static final ClassValue<Boolean> WINDOWED = new ClassValue<Boolean>() {
+
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (Class<?> cls = type; cls != FastReader.class; cls = cls.getSuperclass()) {
+                try {
+                    cls.getDeclaredMethod("fill");
+                    return true;
+                } catch (NoSuchMethodException ex) {
+                    // check superclass
+                }
+            }
+            return false;
+        }
+    };
+
+    protected char[] buf;
+    protected int pos = 0;
+    protected int len = 0;
+
+    /**
+     * Is called when all characters of the window are consumed ({@code pos >= len}).
+     * Should set {@code buf}, {@code pos} and {@code len} to the next portion of input.
+     *
+     * By default there is no window, and input is read by {@link #read()}.
+     *
+     * @return false if there is no more input
+     */
+    protected boolean fill() throws IOException {
+        return false;
+    }
+
+    /**
+     * Creates string from the window characters {@code buf[from..to)}
+     */
+    protected String substring(int from, int to) {
+        return new String(buf, from, to - from);
+    }
+
+    /**
+     * If input can be read again from the start (like in-memory or file-mapped input),
+     * then the lexer does not track line numbers while parsing, and computes them only when needed
+     * by reading the input again with {@link #reopen()}.
+     */
+    protected boolean canReopen() {
+        return false;
+    }
+
+    /**
+     * Is called only if {@link #canReopen()} returns true.
+     *
+     * @return new reader of the same input from the start
+     */
+    protected FastReader reopen() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Reads the next character from the window; must be overridden if {@link #fill()} is not.
+     *
+     * @return character or -1 at the end of input
+     */
+    public int read() throws IOException {
+        if (pos >= len && !fill())
+            return -1;
+        return buf[pos++];
+    }
+
+    /**
+     * @return the reader itself if it overrides {@link #fill()}, otherwise a reader with a one-character window
+     * filled by {@link #read()}
+     */
+    static FastReader window(FastReader reader) {
+        return WINDOWED.get(reader.getClass()) ? reader : new SingleCharReader(reader);
+    }
+
+    private static final class SingleCharReader extends FastReader {
+
+        private final FastReader source;
+
+        SingleCharReader(FastReader source) {
+            this.source = source;
+            this.buf = new char[1];
+        }
+
+        @Override
+        protected boolean fill() throws IOException {
+            int ch = source.read();
+            if (ch < 0)
+                return false;
+            buf[0] = (char) ch;
+            pos = 0;
+            len = 1;
+            return true;
+        }
+    }
 }
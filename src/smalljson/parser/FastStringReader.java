@@ -2,17 +2,71 @@ package smalljson.parser;
 
 public final class FastStringReader extends FastReader {
 
-    private final String str;
-    private int pos = 0;
+    private String str;
+    private int from;
+    private int to;
+    private int offset;
 
     public FastStringReader(String str) {
+        this(str, 0, str.length());
+    }
+
+    /**
+     * Reads part of the string {@code str[from..to)}; indexes are counted from {@code from}
+     */
+    public FastStringReader(String str, int from, int to) {
+        this.str = str;
+        this.from = from;
+        this.to = to;
+        this.offset = from;
+        this.buf = new char[Math.min(to - from, 8192)];
+    }
+
+    /**
+     * Creates reader without input (see {@link #reset(String)}) with the buffer of the given size
+     */
+    public FastStringReader(int bufferSize) {
+        this("", 0, 0);
+        this.buf = new char[bufferSize];
+    }
+
+    /**
+     * Starts reading another string, reusing the buffer
+     */
+    public void reset(String str) {
         this.str = str;
+        this.from = 0;
+        this.to = str.length();
+        this.offset = 0;
+        this.pos = 0;
+        this.len = 0;
+    }
+
+    @Override
+    protected boolean fill() {
+        int count = Math.min(to - offset, buf.length);
+        if (count <= 0)
+            return false;
+        str.getChars(offset, offset + count, buf, 0);
+        offset += count;
+        pos = 0;
+        len = count;
+        return true;
+    }
+
+    @Override
+    protected String substring(int from, int to) {
+        int start = offset - len;
+        return str.substring(start + from, start + to);
+    }
+
+    @Override
+    protected boolean canReopen() {
+        return true;
     }
 
     @Override
-    public int read() {
-        if (pos >= str.length())
-            return -1;
-        return str.charAt(pos++);
+    protected FastReader reopen() {
+        return new FastStringReader(str, from, to);
     }
 }
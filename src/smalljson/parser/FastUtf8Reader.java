@@ -0,0 +1,47 @@
+package smalljson.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads UTF-8 encoded input stream directly, without {@link java.io.InputStreamReader}.
+ */
+public final class FastUtf8Reader extends FastByteReader {
+
+    private InputStream input;
+    private final byte[] array;
+
+    public FastUtf8Reader(InputStream input) {
+        this(input, 8192);
+    }
+
+    public FastUtf8Reader(InputStream input, int bufferSize) {
+        super(bufferSize);
+        this.input = input;
+        this.array = new byte[bufferSize];
+        this.bytes = ByteBuffer.wrap(array, 0, 0);
+    }
+
+    /**
+     * Starts reading another input, reusing the buffers
+     */
+    public void reset(InputStream input) {
+        this.input = input;
+        this.bytes.limit(0);
+        this.pos = 0;
+        this.len = 0;
+    }
+
+    @Override
+    protected boolean fillBytes() throws IOException {
+        int count;
+        do {
+            count = input.read(array);
+        } while (count == 0);
+        if (count < 0)
+            return false;
+        bytes.limit(count).position(0);
+        return true;
+    }
+}
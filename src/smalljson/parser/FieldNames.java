@@ -0,0 +1,58 @@
+package smalljson.parser;
+
+import java.util.Collection;
+
+/**
+ * Fixed set of field names which can be matched against raw chars without creating strings
+ */
+final class FieldNames {
+
+    private final String[] table;
+    private final int mask;
+
+    FieldNames(Collection<String> names) {
+        int size = Integer.highestOneBit(Math.max(names.size() * 2 - 1, 1)) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+        for (String name : names) {
+            int i = name.hashCode() & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = name;
+        }
+    }
+
+    private static boolean matches(String name, char[] chars, int offset, int length) {
+        if (name.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[offset + i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param hash hash of the chars, same as {@link String#hashCode()}
+     * @return name equal to the given chars or null if not found
+     */
+    String find(char[] chars, int offset, int length, int hash) {
+        for (int i = hash & mask; table[i] != null; i = (i + 1) & mask) {
+            if (matches(table[i], chars, offset, length))
+                return table[i];
+        }
+        return null;
+    }
+
+    /**
+     * @return name equal to the given one or null if not found
+     */
+    String find(String name) {
+        for (int i = name.hashCode() & mask; table[i] != null; i = (i + 1) & mask) {
+            if (table[i].equals(name))
+                return table[i];
+        }
+        return null;
+    }
+}
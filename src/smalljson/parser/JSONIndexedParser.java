@@ -0,0 +1,532 @@
+package smalljson.parser;
+
+import smalljson.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses in-memory UTF-8 input in two stages: {@link StructuralIndex} finds offsets of all structural characters,
+ * then the tree is built walking these offsets without a lexer.
+ * <p>
+ * Only standard JSON is parsed this way (features {@link JSONFeature#DUPLICATE_FIELD_NAMES} and
+ * {@link JSONFeature#TRAILING_COMMA} are supported too); for other features or invalid input
+ * the document is parsed by {@link JSONParser}, so the result and errors are always the same as of {@link JSONParser}.
+ */
+public final class JSONIndexedParser {
+
+    private static final Set<JSONFeature> SUPPORTED = EnumSet.of(JSONFeature.DUPLICATE_FIELD_NAMES, JSONFeature.TRAILING_COMMA);
+
+    /**
+     * Thrown when the input cannot be parsed by the indexed parser
+     */
+    static final class Fallback extends RuntimeException {
+
+        Fallback() {
+            super(null, null, false, false);
+        }
+    }
+
+    static final Fallback FALLBACK = new Fallback();
+
+    /**
+     * Values are parsed recursively, so deeper documents are parsed by {@link JSONParser}, which does not recurse
+     */
+    private static final int MAX_RECURSION = 512;
+
+    private final JSONParseOptions options;
+    private final JSONValueFactory valueFactory;
+    private final byte[] json;
+    private final int length;
+    private final String str;
+    private final boolean duplicateKeys;
+    private final boolean allowTrailingComma;
+    private final boolean textInts;
+    private final boolean textFloats;
+
+    int[] offsets;
+    int count;
+    private int current;
+    private char[] chars = new char[64];
+
+    private JSONIndexedParser(JSONParseOptions options, byte[] json, int length, String str) {
+        this.options = options;
+        this.valueFactory = options.valueFactory;
+        this.json = json;
+        this.length = length;
+        this.str = str;
+        this.duplicateKeys = options.features.contains(JSONFeature.DUPLICATE_FIELD_NAMES);
+        this.allowTrailingComma = options.features.contains(JSONFeature.TRAILING_COMMA);
+        this.textInts = valueFactory.usesTextIntValue();
+        this.textFloats = valueFactory.usesTextFloatValue();
+    }
+
+    /**
+     * @param json UTF-8 bytes
+     */
+    public JSONIndexedParser(JSONParseOptions options, byte[] json) {
+        this(options, json, json.length, null);
+    }
+
+    /**
+     * String is converted to UTF-8 before parsing
+     */
+    public JSONIndexedParser(JSONParseOptions options, String json) {
+        this(options, encode(json), json);
+    }
+
+    private JSONIndexedParser(JSONParseOptions options, byte[] utf8, String str) {
+        this(options, utf8, utf8 == null ? 0 : utf8.length, str);
+    }
+
+    /**
+     * @return null if string contains unpaired surrogates (they cannot be encoded in UTF-8), so it is parsed by {@link JSONParser}
+     */
+    private static byte[] encode(String json) {
+        int length = json.length();
+        for (int i = 0; i < length; i++) {
+            char ch = json.charAt(i);
+            if (Character.isSurrogate(ch)) {
+                if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(json.charAt(i + 1))) {
+                    i++;
+                } else {
+                    return null;
+                }
+            }
+        }
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    JSONParser fallbackParser() {
+        FastReader input = str != null ? new FastStringReader(str) : new FastByteBufferReader(ByteBuffer.wrap(json, 0, length));
+        return new JSONParser(options, input);
+    }
+
+    /**
+     * @return parser of the input from the structural offset {@code from} to the structural offset {@code to} inclusive
+     */
+    JSONParser sliceParser(JSONParseOptions options, int from, int to) {
+        int start = offsets[from];
+        return new JSONParser(options, new FastByteBufferReader(ByteBuffer.wrap(json, start, offsets[to] + 1 - start)));
+    }
+
+    private void checkNestingLevel(int nestingLevel) {
+        if (nestingLevel > MAX_RECURSION || (options.maxNestingLevel >= 0 && nestingLevel > options.maxNestingLevel))
+            throw FALLBACK;
+    }
+
+    /**
+     * @return byte at the structural offset {@code index} or -1 at the end of input
+     */
+    int byteAt(int index) {
+        int offset = offsets[index];
+        return offset < length ? json[offset] : -1;
+    }
+
+    private int peek() {
+        return byteAt(current);
+    }
+
+    private void require(int ch) {
+        if (peek() != ch)
+            throw FALLBACK;
+        current++;
+    }
+
+    private JSONObject parseObject(int nestingLevel) {
+        checkNestingLevel(nestingLevel);
+        current++;
+        Map<String, Object> object = valueFactory.objectValue();
+        if (peek() == '}') {
+            current++;
+            return new JSONObject(valueFactory.completeObject(object));
+        }
+        while (true) {
+            if (peek() != '"')
+                throw FALLBACK;
+            String key = parseString(offsets[current++], options.keyCache);
+            if (!duplicateKeys && object.containsKey(key))
+                throw FALLBACK;
+            require(':');
+            object.put(key, parse(nestingLevel));
+            int ch = peek();
+            current++;
+            if (ch == '}')
+                break;
+            if (ch != ',')
+                throw FALLBACK;
+            if (allowTrailingComma && peek() == '}') {
+                current++;
+                break;
+            }
+        }
+        return new JSONObject(valueFactory.completeObject(object));
+    }
+
+    private JSONArray parseArray(int nestingLevel) {
+        checkNestingLevel(nestingLevel);
+        current++;
+        List<Object> array = valueFactory.arrayValue();
+        if (peek() == ']') {
+            current++;
+            return new JSONArray(valueFactory.completeArray(array));
+        }
+        while (true) {
+            array.add(parse(nestingLevel));
+            int ch = peek();
+            current++;
+            if (ch == ']')
+                break;
+            if (ch != ',')
+                throw FALLBACK;
+            if (allowTrailingComma && peek() == ']') {
+                current++;
+                break;
+            }
+        }
+        return new JSONArray(valueFactory.completeArray(array));
+    }
+
+    private Object parse(int nestingLevel) {
+        int ch = peek();
+        if (ch == '{') {
+            return parseObject(nestingLevel + 1);
+        } else if (ch == '[') {
+            return parseArray(nestingLevel + 1);
+        } else if (ch == '"') {
+            return parseString(offsets[current++], options.valueCache);
+        } else if (ch == '-' || (ch >= '0' && ch <= '9')) {
+            return parseNumber(offsets[current++]);
+        } else if (ch == 't') {
+            return parseLiteral("true", valueFactory.boolValue(true));
+        } else if (ch == 'f') {
+            return parseLiteral("false", valueFactory.boolValue(false));
+        } else if (ch == 'n') {
+            return parseLiteral("null", valueFactory.nullValue());
+        } else {
+            throw FALLBACK;
+        }
+    }
+
+    /**
+     * Value must be followed by whitespace, structural character or the end of input
+     */
+    private void checkEnd(int end) {
+        if (end < length) {
+            byte ch = json[end];
+            if (!(ch >= 0 && ch <= ' ') && ch != ',' && ch != ']' && ch != '}' && ch != ':')
+                throw FALLBACK;
+        }
+    }
+
+    private Object parseLiteral(String literal, Object value) {
+        int start = offsets[current++];
+        int end = start + literal.length();
+        if (end > length)
+            throw FALLBACK;
+        for (int i = 1; i < literal.length(); i++) {
+            if (json[start + i] != literal.charAt(i))
+                throw FALLBACK;
+        }
+        checkEnd(end);
+        return value;
+    }
+
+    private char[] chars(int size) {
+        if (size > chars.length) {
+            chars = new char[Math.max(size, chars.length * 2)];
+        }
+        return chars;
+    }
+
+    private int continuation(int offset) {
+        int b = json[offset];
+        if ((b & 0xC0) != 0x80)
+            throw FALLBACK;
+        return b & 0x3F;
+    }
+
+    private static int hexDigit(int ch) {
+        if (ch >= '0' && ch <= '9')
+            return ch - '0';
+        if (ch >= 'a' && ch <= 'f')
+            return ch - 'a' + 10;
+        if (ch >= 'A' && ch <= 'F')
+            return ch - 'A' + 10;
+        throw FALLBACK;
+    }
+
+    /**
+     * @param quote offset of the opening quote
+     * @param cache cache to look up the string in, can be null
+     */
+    private String parseString(int quote, JSONStringCache cache) {
+        int begin = quote + 1;
+        int pos = begin;
+        byte[] json = this.json;
+        while (true) {
+            byte ch = json[pos];
+            if (ch == '"') {
+                // Fast path: ASCII without escapes
+                if (cache == null)
+                    return new String(json, begin, pos - begin, StandardCharsets.ISO_8859_1);
+                int count = pos - begin;
+                char[] buf = chars(count);
+                int hash = 0;
+                for (int i = 0; i < count; i++) {
+                    char c = (char) json[begin + i];
+                    buf[i] = c;
+                    hash = 31 * hash + c;
+                }
+                return cache.intern(buf, 0, count, hash);
+            }
+            // Non-ASCII bytes are negative:
+            if (ch == '\\' || ch < ' ')
+                break;
+            pos++;
+        }
+        // UTF-8 never takes more chars than bytes, escapes too:
+        int end = pos;
+        while (json[end] != '"') {
+            end += json[end] == '\\' ? 2 : 1;
+        }
+        char[] buf = chars(end - begin);
+        int count = 0;
+        for (int i = begin; i < pos; i++) {
+            buf[count++] = (char) json[i];
+        }
+        while (true) {
+            int b = json[pos++];
+            if (b == '"') {
+                break;
+            } else if (b == '\\') {
+                int escape = json[pos++];
+                if (escape == '"' || escape == '\\' || escape == '/') {
+                    buf[count++] = (char) escape;
+                } else if (escape == 'b') {
+                    buf[count++] = '\b';
+                } else if (escape == 'f') {
+                    buf[count++] = '\f';
+                } else if (escape == 'n') {
+                    buf[count++] = '\n';
+                } else if (escape == 'r') {
+                    buf[count++] = '\r';
+                } else if (escape == 't') {
+                    buf[count++] = '\t';
+                } else if (escape == 'u') {
+                    if (pos + 4 > end)
+                        throw FALLBACK;
+                    int unicode = 0;
+                    for (int i = 0; i < 4; i++) {
+                        unicode = (unicode << 4) + hexDigit(json[pos++]);
+                    }
+                    buf[count++] = (char) unicode;
+                } else {
+                    throw FALLBACK;
+                }
+            } else if (b >= ' ') {
+                buf[count++] = (char) b;
+            } else if (b >= (byte) 0xC2 && b <= (byte) 0xDF) {
+                buf[count++] = (char) (((b & 0x1F) << 6) | continuation(pos++));
+            } else if (b >= (byte) 0xE0 && b <= (byte) 0xEF) {
+                int b2 = json[pos] & 0xFF;
+                // No overlong forms and surrogates:
+                if ((b == (byte) 0xE0 && b2 < 0xA0) || (b == (byte) 0xED && b2 > 0x9F))
+                    throw FALLBACK;
+                buf[count++] = (char) (((b & 0x0F) << 12) | (continuation(pos) << 6) | continuation(pos + 1));
+                pos += 2;
+            } else if (b >= (byte) 0xF0 && b <= (byte) 0xF4) {
+                int b2 = json[pos] & 0xFF;
+                // No overlong forms and code points above U+10FFFF:
+                if ((b == (byte) 0xF0 && b2 < 0x90) || (b == (byte) 0xF4 && b2 > 0x8F))
+                    throw FALLBACK;
+                int codePoint = ((b & 0x07) << 18) | (continuation(pos) << 12) | (continuation(pos + 1) << 6) | continuation(pos + 2);
+                pos += 3;
+                buf[count++] = Character.highSurrogate(codePoint);
+                buf[count++] = Character.lowSurrogate(codePoint);
+            } else {
+                // Control characters and invalid UTF-8
+                throw FALLBACK;
+            }
+        }
+        if (cache == null)
+            return new String(buf, 0, count);
+        int hash = 0;
+        for (int i = 0; i < count; i++) {
+            hash = 31 * hash + buf[i];
+        }
+        return cache.intern(buf, 0, count, hash);
+    }
+
+    private String numberText(int start, int end) {
+        return new String(json, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Same as {@link JSONLexer} number parsing restricted to the standard syntax
+     */
+    private Object parseNumber(int start) {
+        byte[] json = this.json;
+        int pos = start;
+        boolean negative = json[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        int digitsStart = pos;
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        while (pos < length) {
+            int digit = json[pos] - '0';
+            if (digit < 0 || digit > 9)
+                break;
+            pos++;
+            if (significant == 0 && digit == 0) {
+                // skip
+            } else if (significant < 19) {
+                mantissa = mantissa * 10 + digit;
+                significant++;
+            } else {
+                significant++;
+                exponent++;
+            }
+        }
+        int intDigits = pos - digitsStart;
+        if (intDigits == 0 || (intDigits > 1 && json[digitsStart] == '0'))
+            throw FALLBACK;
+        boolean floating = false;
+        if (pos < length && json[pos] == '.') {
+            pos++;
+            floating = true;
+            int fractionStart = pos;
+            while (pos < length) {
+                int digit = json[pos] - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                pos++;
+                if (significant == 0 && digit == 0) {
+                    exponent--;
+                } else if (significant < 19) {
+                    mantissa = mantissa * 10 + digit;
+                    significant++;
+                    exponent--;
+                } else {
+                    significant++;
+                }
+            }
+            if (pos == fractionStart)
+                throw FALLBACK;
+        }
+        if (pos < length && (json[pos] == 'e' || json[pos] == 'E')) {
+            pos++;
+            floating = true;
+            boolean negativeExp = false;
+            if (pos < length && (json[pos] == '+' || json[pos] == '-')) {
+                negativeExp = json[pos] == '-';
+                pos++;
+            }
+            int expStart = pos;
+            int exp = 0;
+            while (pos < length) {
+                int digit = json[pos] - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                pos++;
+                if (exp < 1000000) {
+                    exp = exp * 10 + digit;
+                }
+            }
+            if (pos == expStart)
+                throw FALLBACK;
+            exponent += negativeExp ? -exp : exp;
+        }
+        checkEnd(pos);
+        if (floating) {
+            if (!textFloats) {
+                if (mantissa == 0)
+                    return valueFactory.doubleValue(negative ? -0.0 : 0.0);
+                double value = DoubleParser.toDouble(mantissa, exponent, significant > 19);
+                if (!Double.isNaN(value))
+                    return valueFactory.doubleValue(negative ? -value : value);
+            }
+            String text = numberText(start, pos);
+            if (textFloats)
+                return valueFactory.floatValue(text);
+            return valueFactory.doubleValue(Double.parseDouble(text));
+        } else if (negative && significant == 0) {
+            return valueFactory.zeroValue(-1);
+        } else if (!textInts && significant <= 19 && (mantissa >= 0 || (negative && mantissa == Long.MIN_VALUE))) {
+            return valueFactory.longValue(negative ? -mantissa : mantissa);
+        } else {
+            return valueFactory.intValue(negative ? -1 : 1, numberText(digitsStart, pos));
+        }
+    }
+
+    /**
+     * Builds structural index of the input
+     *
+     * @return false if the input cannot be parsed by the indexed parser
+     */
+    boolean buildIndex() {
+        if (json == null || !SUPPORTED.containsAll(options.features))
+            return false;
+        StructuralIndex index = StructuralIndex.build(json, length);
+        if (index == null)
+            return false;
+        offsets = index.offsets;
+        count = index.count;
+        return true;
+    }
+
+    /**
+     * Parses object key at the structural offset {@code index}
+     */
+    String parseKey(int index) {
+        if (byteAt(index) != '"')
+            throw FALLBACK;
+        return parseString(offsets[index], options.keyCache);
+    }
+
+    /**
+     * Parses value at the structural offset {@code index}
+     */
+    Object parseValue(int index, int nestingLevel) {
+        current = index;
+        return parse(nestingLevel);
+    }
+
+    private Object parseIndexed() {
+        try {
+            if (!buildIndex())
+                throw FALLBACK;
+            Object result = parseValue(0, 0);
+            if (current != count)
+                throw FALLBACK;
+            return result;
+        } catch (Fallback ex) {
+            return fallbackParser().parse();
+        }
+    }
+
+    public Object parse() {
+        return parseIndexed();
+    }
+
+    public JSONObject parseObject() {
+        Object result = parseIndexed();
+        if (result instanceof JSONObject)
+            return (JSONObject) result;
+        return fallbackParser().parseObject();
+    }
+
+    public JSONArray parseArray() {
+        Object result = parseIndexed();
+        if (result instanceof JSONArray)
+            return (JSONArray) result;
+        return fallbackParser().parseArray();
+    }
+}
@@ -0,0 +1,418 @@
+package smalljson.parser;
+
+import smalljson.JSONArray;
+import smalljson.JSONFeature;
+import smalljson.JSONObject;
+import smalljson.JSONParseException;
+import smalljson.JSONParseOptions;
+
+import java.util.*;
+
+/**
+ * Parses in-memory input on demand: the input is indexed once (see {@link JSONIndexedParser}),
+ * and values of objects and arrays are decoded when they are first accessed (then they are cached).
+ * Values which are never accessed are never decoded.
+ * <p>
+ * The structure of the document (brackets, commas, colons, nesting level) is checked by {@link #parse()},
+ * but errors inside keys, strings and numbers (and duplicate keys) are reported only when their values
+ * or containing objects are accessed.
+ * Error messages are the same as of {@link JSONParser}.
+ * <p>
+ * Objects and arrays returned are ordinary {@link JSONObject} and {@link JSONArray} with maps and lists
+ * created by {@link smalljson.JSONValueFactory}, but unlike them are not thread-safe even for reading
+ * (reading a value stores the decoded value in the map or list), and they keep the whole input and its index in memory.
+ * Use {@link #materialize(Object)} to get a copy which can be shared between threads or cached.
+ * Replacing or removing a value which was not read yet decodes it to be returned by {@code put}, {@code set}
+ * or {@code remove}; if the value is invalid, null is returned instead of an error.
+ * Non-standard features (except for {@link JSONFeature#DUPLICATE_FIELD_NAMES} and {@link JSONFeature#TRAILING_COMMA})
+ * are not supported, documents using them are parsed by {@link JSONParser}.
+ */
+public final class JSONLazyParser {
+
+    // Structure check states:
+    private static final int VALUE = 0;
+    private static final int VALUE_OR_END = 1;
+    private static final int KEY = 2;
+    private static final int KEY_OR_END = 3;
+    private static final int COLON = 4;
+    private static final int COMMA_OR_END = 5;
+    private static final int END = 6;
+
+    /**
+     * Placeholder for a value which is not decoded yet
+     */
+    private static final class Lazy {
+
+        final int index;
+
+        Lazy(int index) {
+            this.index = index;
+        }
+    }
+
+    private final class LazyObject extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> map;
+
+        LazyObject(Map<String, Object> map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = map.get(key);
+            if (value instanceof Lazy) {
+                value = decode(value);
+                map.put((String) key, value);
+            }
+            return value;
+        }
+
+        /**
+         * @return previous value, or null if it was invalid
+         */
+        @Override
+        public Object put(String key, Object value) {
+            return previous(map.put(key, value));
+        }
+
+        /**
+         * @return removed value, or null if it was invalid
+         */
+        @Override
+        public Object remove(Object key) {
+            return previous(map.remove(key));
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        JSONObject materialize() {
+            Map<String, Object> result = options.valueFactory.objectValue();
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                result.put(entry.getKey(), detach(entry.getValue()));
+            }
+            return new JSONObject(options.valueFactory.completeObject(result));
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+
+                @Override
+                public int size() {
+                    return map.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> entries = map.entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = entries.next();
+                            if (entry.getValue() instanceof Lazy) {
+                                entry.setValue(decode(entry.getValue()));
+                            }
+                            return entry;
+                        }
+
+                        @Override
+                        public void remove() {
+                            entries.remove();
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private final class LazyArray extends AbstractList<Object> implements RandomAccess {
+
+        private final List<Object> list;
+
+        LazyArray(List<Object> list) {
+            this.list = list;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public Object get(int index) {
+            Object value = list.get(index);
+            if (value instanceof Lazy) {
+                value = decode(value);
+                list.set(index, value);
+            }
+            return value;
+        }
+
+        /**
+         * @return previous value, or null if it was invalid
+         */
+        @Override
+        public Object set(int index, Object element) {
+            return previous(list.set(index, element));
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            list.add(index, element);
+            modCount++;
+        }
+
+        /**
+         * @return removed value, or null if it was invalid
+         */
+        @Override
+        public Object remove(int index) {
+            Object removed = list.remove(index);
+            modCount++;
+            return previous(removed);
+        }
+
+        JSONArray materialize() {
+            List<Object> result = options.valueFactory.arrayValue();
+            for (Object element : list) {
+                result.add(detach(element));
+            }
+            return new JSONArray(options.valueFactory.completeArray(result));
+        }
+    }
+
+    private final JSONParseOptions options;
+    private final JSONIndexedParser parser;
+    private final boolean duplicateKeys;
+    private final boolean allowTrailingComma;
+    /**
+     * Structural index of the matching closing bracket for every opening bracket
+     */
+    private int[] ends;
+
+    /**
+     * @param json UTF-8 bytes
+     */
+    public JSONLazyParser(JSONParseOptions options, byte[] json) {
+        this(options, new JSONIndexedParser(options, json));
+    }
+
+    public JSONLazyParser(JSONParseOptions options, String json) {
+        this(options, new JSONIndexedParser(options, json));
+    }
+
+    private JSONLazyParser(JSONParseOptions options, JSONIndexedParser parser) {
+        this.options = options;
+        this.parser = parser;
+        this.duplicateKeys = options.features.contains(JSONFeature.DUPLICATE_FIELD_NAMES);
+        this.allowTrailingComma = options.features.contains(JSONFeature.TRAILING_COMMA);
+    }
+
+    /**
+     * Checks order of structural characters and nesting level, and matches brackets
+     */
+    private void checkStructure() {
+        int count = parser.count;
+        ends = new int[count];
+        int[] stack = new int[16];
+        int depth = 0;
+        int state = VALUE;
+        for (int i = 0; i < count; i++) {
+            int ch = parser.byteAt(i);
+            boolean object = depth > 0 && parser.byteAt(stack[depth - 1]) == '{';
+            if (ch == ',') {
+                if (state != COMMA_OR_END)
+                    throw JSONIndexedParser.FALLBACK;
+                state = object ? KEY : VALUE;
+            } else if (ch == ':') {
+                if (state != COLON)
+                    throw JSONIndexedParser.FALLBACK;
+                state = VALUE;
+            } else if (ch == '}' || ch == ']') {
+                if (depth == 0 || object != (ch == '}'))
+                    throw JSONIndexedParser.FALLBACK;
+                int empty = object ? KEY_OR_END : VALUE_OR_END;
+                int trailingComma = object ? KEY : VALUE;
+                if (!(state == COMMA_OR_END || state == empty || (allowTrailingComma && state == trailingComma)))
+                    throw JSONIndexedParser.FALLBACK;
+                ends[stack[--depth]] = i;
+                state = depth == 0 ? END : COMMA_OR_END;
+            } else if (ch == '"' && (state == KEY || state == KEY_OR_END)) {
+                state = COLON;
+            } else {
+                if (state != VALUE && state != VALUE_OR_END)
+                    throw JSONIndexedParser.FALLBACK;
+                if (ch == '{' || ch == '[') {
+                    if (options.maxNestingLevel >= 0 && depth >= options.maxNestingLevel)
+                        throw JSONIndexedParser.FALLBACK;
+                    if (depth >= stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[depth++] = i;
+                    state = ch == '{' ? KEY_OR_END : VALUE_OR_END;
+                } else {
+                    state = depth == 0 ? END : COMMA_OR_END;
+                }
+            }
+        }
+        if (state != END)
+            throw JSONIndexedParser.FALLBACK;
+    }
+
+    /**
+     * @return structural index following the value at {@code index}
+     */
+    private int skip(int index) {
+        int ch = parser.byteAt(index);
+        return ch == '{' || ch == '[' ? ends[index] + 1 : index + 1;
+    }
+
+    private JSONObject object(int start) {
+        Map<String, Object> map = options.valueFactory.objectValue();
+        int end = ends[start];
+        int i = start + 1;
+        while (i < end) {
+            String key = parser.parseKey(i);
+            if (!duplicateKeys && map.containsKey(key))
+                throw JSONIndexedParser.FALLBACK;
+            // Key is followed by colon:
+            map.put(key, new Lazy(i + 2));
+            i = skip(i + 2);
+            if (i < end) {
+                // Skip comma
+                i++;
+            }
+        }
+        return new JSONObject(new LazyObject(options.valueFactory.completeObject(map)));
+    }
+
+    private JSONArray array(int start) {
+        List<Object> list = options.valueFactory.arrayValue();
+        int end = ends[start];
+        int i = start + 1;
+        while (i < end) {
+            list.add(new Lazy(i));
+            i = skip(i);
+            if (i < end) {
+                // Skip comma
+                i++;
+            }
+        }
+        return new JSONArray(new LazyArray(options.valueFactory.completeArray(list)));
+    }
+
+    private Object value(int index) {
+        int ch = parser.byteAt(index);
+        if (ch == '{') {
+            return object(index);
+        } else if (ch == '[') {
+            return array(index);
+        } else {
+            return parser.parseValue(index, 0);
+        }
+    }
+
+    private Object decode(Object value) {
+        if (!(value instanceof Lazy))
+            return value;
+        try {
+            return value(((Lazy) value).index);
+        } catch (JSONIndexedParser.Fallback ex) {
+            // Parse the whole document to report the same error as JSONParser:
+            parser.fallbackParser().parse();
+            throw new JSONParseException("Invalid value");
+        }
+    }
+
+    /**
+     * Decodes replaced or removed value, since {@code put}/{@code set}/{@code remove} have to return it.
+     * Invalid values are returned as null rather than reported, since they are not in the document anymore.
+     */
+    private Object previous(Object value) {
+        if (!(value instanceof Lazy))
+            return value;
+        try {
+            return value(((Lazy) value).index);
+        } catch (JSONIndexedParser.Fallback ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the value entirely, without placeholders
+     */
+    private Object detach(Object value) {
+        if (!(value instanceof Lazy))
+            return materialize(value);
+        int index = ((Lazy) value).index;
+        try {
+            return parser.parseValue(index, 0);
+        } catch (JSONIndexedParser.Fallback ex) {
+            // Invalid or too deep for the indexed parser
+        }
+        int ch = parser.byteAt(index);
+        if (ch == '{' || ch == '[') {
+            // Nesting level was checked for the whole document
+            JSONParseOptions sliceOptions = options.copy().maxNestingLevel(-1).buildOptions();
+            try {
+                return parser.sliceParser(sliceOptions, index, ends[index]).parse();
+            } catch (JSONParseException ex) {
+                // Report error location in the whole document
+            }
+        }
+        parser.fallbackParser().parse();
+        throw new JSONParseException("Invalid value");
+    }
+
+    /**
+     * Returns a copy of the object or array returned by lazy parsing with all values decoded.
+     * Unlike the lazy value, the copy does not refer to the input, and can be read by multiple threads
+     * (as the maps and lists created by {@link smalljson.JSONValueFactory} allow).
+     * Other values are returned as is.
+     *
+     * @throws JSONParseException if the value contains invalid values
+     */
+    public static Object materialize(Object value) {
+        if (value instanceof JSONObject) {
+            Map<String, Object> map = ((JSONObject) value).toMap();
+            if (map instanceof LazyObject)
+                return ((LazyObject) map).materialize();
+        } else if (value instanceof JSONArray) {
+            List<Object> list = ((JSONArray) value).toList();
+            if (list instanceof LazyArray)
+                return ((LazyArray) list).materialize();
+        }
+        return value;
+    }
+
+    public Object parse() {
+        try {
+            if (!parser.buildIndex())
+                throw JSONIndexedParser.FALLBACK;
+            checkStructure();
+            return value(0);
+        } catch (JSONIndexedParser.Fallback ex) {
+            return parser.fallbackParser().parse();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package smalljson.parser;
 
 import smalljson.JSONFeature;
+import smalljson.JSONStringCache;
 import smalljson.JSONParseException;
 import smalljson.JSONParseOptions;
 import smalljson.JSONValueFactory;
@@ -10,7 +11,12 @@ import java.io.UncheckedIOException;
 
 public final class JSONLexer {
 
-    private final FastReader input;
+    /**
+     * Scratch builder larger than this is not kept by {@link #reset(FastReader)}
+     */
+    private static final int MAX_SCRATCH = 65536;
+
+    private FastReader input;
     private final JSONValueFactory valueFactory;
     private final boolean comments;
     private final boolean singleQuotes;
@@ -22,16 +28,76 @@ public final class JSONLexer {
     private final boolean leadingZeros;
     private final boolean leadingPoint;
     private final boolean trailingPoint;
+    private final boolean textInts;
+    private final boolean textFloats;
+    /**
+     * If false then line numbers are computed only when needed, by rescanning the input from the start
+     */
+    private boolean trackLines;
+    private final JSONStringCache keyCache;
+    private final JSONStringCache valueCache;
+
+    private char[] buf;
+    private int pos;
+    private int len;
+    /**
+     * Index of {@code buf[0]} in the input
+     */
+    private long base;
+    private boolean eof = false;
 
-    private long index = 0;
     private int line = 1;
-    private int column = 1;
-    private int ch0 = 0;
-    private int ch1;
-    private int ch2;
+    /**
+     * Index of the first character of the current line
+     */
+    private long lineStart = 0;
+    private long lastCR = Long.MIN_VALUE;
+    /**
+     * When lines are not tracked, {@link #line}, {@link #lineStart} and {@link #lastCR}
+     * describe the input read by {@link #rescan} up to {@link #rescanned} index
+     */
+    private FastReader rescan = null;
+    private long rescanned = 0;
+
+    // Number being parsed:
+    /**
+     * First 19 significant digits (as unsigned long)
+     */
+    private long mantissa;
+    /**
+     * Total number of significant digits, can be more than 19
+     */
+    private int significantDigits;
+    /**
+     * Decimal exponent of {@link #mantissa} without explicit exponent
+     */
+    private int mantissaExponent;
+    /**
+     * Number text (without sign) is {@code numberSpill + buf[numberStart..pos)}
+     */
+    private int numberStart;
+    private StringBuilder numberSpill;
+    /**
+     * Reused for strings with escapes, identifiers and spilled numbers
+     */
+    private StringBuilder scratch = new StringBuilder();
+
+    // Position before the token (see mark()):
+    private int markPos;
+    private long markBase;
+    private int markLine;
+    private long markLineStart;
+    private long markLastCR;
+
+    // Current token:
+    JSONTokenType tokenType;
+    String tokenText;
+    Object tokenValue;
+    long tokenIndex;
+    int tokenLine;
+    int tokenColumn;
 
     public JSONLexer(JSONParseOptions options, FastReader input) {
-        this.input = input;
         this.valueFactory = options.valueFactory;
         this.comments = options.features.contains(JSONFeature.JAVA_COMMENTS);
         this.singleQuotes = options.features.contains(JSONFeature.SINGLE_QUOTES);
@@ -43,86 +109,201 @@ public final class JSONLexer {
         this.leadingZeros = options.features.contains(JSONFeature.LEADING_ZEROS);
         this.leadingPoint = options.features.contains(JSONFeature.LEADING_DECIMAL_POINT);
         this.trailingPoint = options.features.contains(JSONFeature.TRAILING_DECIMAL_POINT);
+        this.textInts = valueFactory.usesTextIntValue();
+        this.textFloats = valueFactory.usesTextFloatValue();
+        this.keyCache = options.keyCache;
+        this.valueCache = options.valueCache;
+
+        start(input);
+    }
+
+    private void start(FastReader input) {
+        input = FastReader.window(input);
+        this.input = input;
+        this.trackLines = !input.canReopen();
+        this.buf = input.buf;
+        this.pos = input.pos;
+        this.len = input.len;
+        this.base = -pos;
+    }
+
+    /**
+     * Starts reading another input with the same options, so that the lexer can be reused
+     */
+    public void reset(FastReader input) {
+        start(input);
+        eof = false;
+        line = 1;
+        lineStart = 0;
+        lastCR = Long.MIN_VALUE;
+        rescan = null;
+        rescanned = 0;
+        numberSpill = null;
+        if (scratch.capacity() > MAX_SCRATCH) {
+            scratch = new StringBuilder();
+        }
+        token(null, null, null);
+    }
+
+    /**
+     * Is called when the window is exhausted ({@code pos >= len})
+     */
+    private boolean fill() throws IOException {
+        if (eof)
+            return false;
+        long index = index();
+        input.pos = pos;
+        do {
+            if (!input.fill()) {
+                eof = true;
+                return false;
+            }
+        } while (input.pos >= input.len);
+        buf = input.buf;
+        pos = input.pos;
+        len = input.len;
+        base = index - pos;
+        return true;
+    }
 
+    private int ch() throws IOException {
+        if (pos >= len && !fill())
+            return -1;
+        return buf[pos];
+    }
+
+    private long index() {
+        return base + pos;
+    }
+
+    private int column(long index) {
+        return (int) (index - lineStart) + 1;
+    }
+
+    /**
+     * Line breaks can occur only in whitespace, comments and strings, so only these places track lines.
+     * {@code "\r\n"} is counted as a single line break.
+     */
+    private void newLine(char ch, long index) {
+        if (!(ch == '\n' && lastCR == index - 1)) {
+            line++;
+        }
+        if (ch == '\r') {
+            lastCR = index;
+        }
+        lineStart = index + 1;
+    }
+
+    private boolean rescanLines(long index) {
         try {
-            this.ch1 = input.read();
-            this.ch2 = input.read();
+            if (rescan == null || index < rescanned) {
+                rescan = input.reopen();
+                rescanned = 0;
+                line = 1;
+                lineStart = 0;
+                lastCR = Long.MIN_VALUE;
+            }
+            while (rescanned < index) {
+                int ch = rescan.read();
+                if (ch < 0)
+                    break;
+                if (ch == '\r' || ch == '\n') {
+                    newLine((char) ch, rescanned);
+                }
+                rescanned++;
+            }
+            return true;
         } catch (IOException ex) {
-            throw new UncheckedIOException(ex);
+            return false;
         }
     }
 
-    private void moveLocation() {
-        if (ch1 < 0)
-            return;
-        index++;
-        if (ch1 == '\r' || ch1 == '\n') {
-            if (!(ch0 == '\r' && ch1 == '\n')) {
-                line++;
-                column = 1;
-            }
+    private JSONParseException error(long index, int line, int column, String message) {
+        if (trackLines) {
+            return new JSONParseException(index, line, column, message);
+        } else if (rescanLines(index)) {
+            return new JSONParseException(index, this.line, column(index), message);
         } else {
-            column++;
+            return new JSONParseException(index, 0, 0, message);
         }
     }
 
-    private int ch() {
-        return ch1;
+    private JSONParseException error(String message) {
+        long index = index();
+        return error(index, line, column(index), message);
     }
 
-    private void next() throws IOException {
-        moveLocation();
-        ch0 = ch1;
-        ch1 = ch2;
-        ch2 = input.read();
+    /**
+     * Error at the start of the current token
+     */
+    JSONParseException tokenError(String message) {
+        return error(tokenIndex, tokenLine, tokenColumn, message);
     }
 
-    private void skipSpaces() throws IOException {
-        while (true) {
-            int ch = ch();
-            if (ch < 0)
-                break;
-            if (comments) {
-                if (ch1 == '/' && ch2 == '/') {
-                    next();
-                    next();
-                    while (ch1 >= 0) {
-                        if (ch1 == '\r' || ch1 == '\n') {
-                            next();
-                            break;
-                        }
-                        next();
-                    }
-                    continue;
-                } else if (ch1 == '/' && ch2 == '*') {
-                    next();
-                    next();
-                    boolean finished = false;
-                    while (ch1 >= 0) {
-                        if (ch1 == '*' && ch2 == '/') {
-                            finished = true;
-                            next();
-                            next();
-                            break;
-                        }
-                        next();
-                    }
-                    if (!finished) {
-                        throw new JSONParseException(index, line, column, "Comment is not closed");
+    private void token(JSONTokenType type, String text, Object value) {
+        this.tokenType = type;
+        this.tokenText = text;
+        this.tokenValue = value;
+    }
+
+    private void skipComment() throws IOException {
+        long index = index();
+        int line = this.line;
+        int column = column(index);
+        pos++;
+        int next = ch();
+        if (next == '/') {
+            pos++;
+            while (pos < len || fill()) {
+                char ch = buf[pos++];
+                if (ch == '\r' || ch == '\n') {
+                    if (trackLines) {
+                        newLine(ch, index() - 1);
                     }
-                    continue;
+                    break;
+                }
+            }
+        } else if (next == '*') {
+            pos++;
+            boolean star = false;
+            while (true) {
+                if (pos >= len && !fill()) {
+                    throw error("Comment is not closed");
+                }
+                char ch = buf[pos++];
+                if (star && ch == '/')
+                    break;
+                star = ch == '*';
+                if (trackLines && (ch == '\r' || ch == '\n')) {
+                    newLine(ch, index() - 1);
                 }
             }
-            if (ch > ' ')
+        } else {
+            throw error(index, line, column, "Unexpected character '/'");
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (pos < len || fill()) {
+            char ch = buf[pos];
+            if (ch > ' ') {
+                if (ch == '/' && comments) {
+                    skipComment();
+                    continue;
+                }
                 break;
-            next();
+            }
+            if (trackLines && (ch == '\r' || ch == '\n')) {
+                newLine(ch, index());
+            }
+            pos++;
         }
     }
 
-    private void parseEscape(StringBuilder buf) throws IOException {
+    private void parseEscape(StringBuilder str) throws IOException {
         int ch = ch();
         if (ch < 0) {
-            throw new JSONParseException(index, line, column, "Unterminated escape sequence");
+            throw error("Unterminated escape sequence");
         }
         char escape;
         if (ch == '"' || ch == '\\' || ch == '/') {
@@ -138,10 +319,10 @@ public final class JSONLexer {
         } else if (ch == 't') {
             escape = '\t';
         } else if (ch == 'u') {
-            next();
-            long index = this.index;
+            pos++;
+            long index = index();
             int line = this.line;
-            int column = this.column;
+            int column = column(index);
             int ndigits = 0;
             int unicode = 0;
             while (ndigits < 4) {
@@ -156,90 +337,244 @@ public final class JSONLexer {
                 } else {
                     break;
                 }
-                next();
+                pos++;
                 ndigits++;
                 unicode = (unicode << 4) + digit;
             }
             if (ndigits != 4 && (ndigits == 0 || !invalidEscapes)) {
-                throw new JSONParseException(index, line, column, "Invalid unicode escape sequence");
+                throw error(index, line, column, "Invalid unicode escape sequence");
             }
-            buf.append((char) unicode);
+            str.append((char) unicode);
             return;
         } else {
             if (!invalidEscapes) {
-                throw new JSONParseException(index, line, column, "Invalid escape sequence");
+                throw error("Invalid escape sequence");
             }
             escape = (char) ch;
+            if (trackLines && (escape == '\r' || escape == '\n')) {
+                newLine(escape, index());
+            }
         }
-        next();
-        buf.append(escape);
+        pos++;
+        str.append(escape);
     }
 
-    private JSONToken parseString(long index, int line, int column, int quote) throws IOException {
-        next();
-        StringBuilder buf = new StringBuilder();
+    /**
+     * @param cache cache to look up the string in, can be null
+     * @param names if not null, string is looked up in these names and is not created when not found (token text is null then)
+     */
+    private void parseString(int quote, JSONStringCache cache, FieldNames names) throws IOException {
+        pos++;
+        int begin = pos;
+        if (cache != null || names != null) {
+            int hash = 0;
+            while (pos < len) {
+                char ch = buf[pos];
+                if (ch == quote || ch == '\\' || ch < ' ')
+                    break;
+                hash = 31 * hash + ch;
+                pos++;
+            }
+            if (pos < len && buf[pos] == quote) {
+                // Fast path: string is found in cache without creating it
+                String text = names != null ? names.find(buf, begin, pos - begin, hash) : cache.intern(buf, begin, pos - begin, hash);
+                pos++;
+                token(JSONTokenType.STRING, text, null);
+                return;
+            }
+        } else {
+            while (pos < len) {
+                char ch = buf[pos];
+                if (ch == quote || ch == '\\' || ch < ' ')
+                    break;
+                pos++;
+            }
+            if (pos < len && buf[pos] == quote) {
+                // Fast path: no escapes and does not cross the window boundary
+                String text = input.substring(begin, pos);
+                pos++;
+                token(JSONTokenType.STRING, text, null);
+                return;
+            }
+        }
+        StringBuilder str = scratch;
+        str.setLength(0);
+        str.append(buf, begin, pos - begin);
         while (true) {
-            int ch = ch();
-            if (ch < 0) {
-                throw new JSONParseException(index, line, column, "String is not terminated");
+            if (pos >= len && !fill()) {
+                throw tokenError("String is not terminated");
             }
-            if (ch == quote) {
-                next();
-                break;
+            int start = pos;
+            while (pos < len) {
+                char ch = buf[pos];
+                if (ch == quote || ch == '\\' || ch < ' ')
+                    break;
+                pos++;
             }
+            str.append(buf, start, pos - start);
+            if (pos >= len)
+                continue;
+            char ch = buf[pos++];
+            if (ch == quote)
+                break;
             if (ch == '\\') {
-                next();
-                parseEscape(buf);
+                parseEscape(str);
                 continue;
             }
-            if (!unescapedControls && ch < ' ') {
-                throw new JSONParseException(index, line, column, "Non-escaped control character");
+            if (!unescapedControls) {
+                throw tokenError("Non-escaped control character");
+            }
+            if (trackLines && (ch == '\r' || ch == '\n')) {
+                newLine(ch, index() - 1);
             }
-            next();
-            buf.append((char) ch);
+            str.append(ch);
         }
-        return new JSONToken(JSONTokenType.STRING, buf.toString(), index, line, column);
+        String text = str.toString();
+        if (names != null) {
+            text = names.find(text);
+        } else if (cache != null) {
+            text = cache.intern(text);
+        }
+        token(JSONTokenType.STRING, text, null);
     }
 
-    private enum Digits {
-        NONE, ONLY_ZERO, HAS_NON_ZERO
+    /**
+     * Same as {@link #ch()}, but keeps number text when the window is refilled
+     */
+    private int numberCh() throws IOException {
+        if (pos >= len) {
+            if (numberSpill == null) {
+                numberSpill = scratch;
+                numberSpill.setLength(0);
+            }
+            numberSpill.append(buf, numberStart, pos - numberStart);
+            numberStart = pos;
+            if (!fill())
+                return -1;
+            numberStart = pos;
+        }
+        return buf[pos];
     }
 
-    private Digits readDigits(StringBuilder buf) throws IOException {
-        boolean hasAny = false;
-        boolean hasNonZero = false;
-        while (true) {
-            int ch = ch();
-            if (ch >= '0' && ch <= '9') {
-                next();
-                buf.append((char) ch);
-                hasAny = true;
-                if (ch != '0') {
-                    hasNonZero = true;
+    private String numberText() {
+        if (numberSpill == null) {
+            return input.substring(numberStart, pos);
+        } else {
+            return numberSpill.append(buf, numberStart, pos - numberStart).toString();
+        }
+    }
+
+    /**
+     * Accumulates digits of integer or fractional part into {@link #mantissa}
+     *
+     * @return number of digits read
+     */
+    private int readMantissa(boolean fraction) throws IOException {
+        int count = 0;
+        long mantissa = this.mantissa;
+        int significant = significantDigits;
+        int exponent = mantissaExponent;
+        while (numberCh() >= 0) {
+            int start = pos;
+            while (pos < len) {
+                int digit = buf[pos] - '0';
+                if (digit < 0 || digit > 9)
+                    break;
+                pos++;
+                if (significant == 0 && digit == 0) {
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (significant < 19) {
+                    mantissa = mantissa * 10 + digit;
+                    significant++;
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else {
+                    significant++;
+                    if (!fraction) {
+                        exponent++;
+                    }
                 }
-            } else {
+            }
+            count += pos - start;
+            if (pos < len)
+                break;
+        }
+        this.mantissa = mantissa;
+        this.significantDigits = significant;
+        this.mantissaExponent = exponent;
+        return count;
+    }
+
+    private int readExponent() throws IOException {
+        boolean negative = false;
+        int sch = numberCh();
+        if (sch == '+') {
+            pos++;
+        } else if (sch == '-') {
+            pos++;
+            negative = true;
+        }
+        int digits = 0;
+        int exponent = 0;
+        while (true) {
+            int ch = numberCh();
+            if (ch < '0' || ch > '9')
                 break;
+            pos++;
+            digits++;
+            if (exponent < 1000000) {
+                exponent = exponent * 10 + (ch - '0');
+            }
+        }
+        if (digits == 0) {
+            throw tokenError("Exponent must have at least one digit");
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    private Object intValue(boolean negative) {
+        if (!textInts && significantDigits <= 19 && (mantissa >= 0 || (negative && mantissa == Long.MIN_VALUE))) {
+            return valueFactory.longValue(negative ? -mantissa : mantissa);
+        }
+        return valueFactory.intValue(negative ? -1 : 1, numberText());
+    }
+
+    private Object floatValue(boolean negative, int exponent) {
+        if (!textFloats) {
+            if (mantissa == 0) {
+                return valueFactory.doubleValue(negative ? -0.0 : 0.0);
+            }
+            double value = DoubleParser.toDouble(mantissa, exponent, significantDigits > 19);
+            if (!Double.isNaN(value)) {
+                return valueFactory.doubleValue(negative ? -value : value);
             }
         }
-        if (!hasAny)
-            return Digits.NONE;
-        return hasNonZero ? Digits.HAS_NON_ZERO : Digits.ONLY_ZERO;
+        String text = numberText();
+        String str = negative ? "-" + text : text;
+        if (textFloats) {
+            return valueFactory.floatValue(str);
+        } else {
+            return valueFactory.doubleValue(Double.parseDouble(str));
+        }
     }
 
     private static boolean isInfinity(String ident) {
         return "Infinity".equalsIgnoreCase(ident) || "inf".equalsIgnoreCase(ident);
     }
 
-    private JSONToken parseNumber(long index, int line, int column) throws IOException {
+    private void parseNumber() throws IOException {
         int isign = 0;
         if (ch() == '+') {
             if (!leadingPlus) {
-                throw new JSONParseException(index, line, column, "Plus sign is not allowed");
+                throw tokenError("Plus sign is not allowed");
             }
-            next();
+            pos++;
             isign = 1;
         } else if (ch() == '-') {
-            next();
+            pos++;
             isign = -1;
         }
         if (specialNumbers) {
@@ -247,84 +582,106 @@ public final class JSONLexer {
             if (Character.isJavaIdentifierStart(ch)) {
                 String ident = parseIdent();
                 if (isInfinity(ident)) {
-                    Object value = valueFactory.infinityValue(isign);
-                    return new JSONToken(JSONTokenType.FLOAT, null, value, index, line, column);
+                    token(JSONTokenType.FLOAT, null, valueFactory.infinityValue(isign));
+                    return;
                 } else {
-                    throw new JSONParseException(index, line, column, "Invalid infinite number");
+                    throw tokenError("Invalid infinite number");
                 }
             }
         }
-        StringBuilder buf = new StringBuilder();
-        Digits digits1 = readDigits(buf);
-        if (!leadingPoint && digits1 == Digits.NONE) {
-            throw new JSONParseException(index, line, column, "Leading decimal point is not allowed");
+        mantissa = 0;
+        significantDigits = 0;
+        mantissaExponent = 0;
+        numberStart = pos;
+        numberSpill = null;
+        boolean zeroFirst = numberCh() == '0';
+        int intDigits = readMantissa(false);
+        if (!leadingPoint && intDigits == 0) {
+            throw tokenError("Leading decimal point is not allowed");
         }
-        if (!leadingZeros && buf.length() > 1 && buf.charAt(0) == '0') {
-            throw new JSONParseException(index, line, column, "Leading zeros are not allowed");
+        if (!leadingZeros && intDigits > 1 && zeroFirst) {
+            throw tokenError("Leading zeros are not allowed");
         }
-        boolean hasDigits = digits1 != Digits.NONE;
+        boolean hasDigits = intDigits > 0;
         boolean floating = false;
-        if (ch() == '.') {
-            next();
+        if (numberCh() == '.') {
+            pos++;
             floating = true;
-            buf.append('.');
-            Digits digits2 = readDigits(buf);
-            if (digits2 == Digits.NONE) {
+            int fractionDigits = readMantissa(true);
+            if (fractionDigits == 0) {
                 if (!trailingPoint) {
-                    throw new JSONParseException(index, line, column, "Trailing decimal point is not allowed");
+                    throw tokenError("Trailing decimal point is not allowed");
                 }
             } else {
                 hasDigits = true;
             }
         }
         if (!hasDigits) {
-            throw new JSONParseException(index, line, column, "Number must have at least one digit");
+            throw tokenError("Number must have at least one digit");
         }
-        int ech = ch();
+        int exponent = 0;
+        int ech = numberCh();
         if (ech == 'e' || ech == 'E') {
-            next();
+            pos++;
             floating = true;
-            buf.append((char) ech);
-            if (ch() == '+') {
-                next();
-                buf.append('+');
-            } else if (ch() == '-') {
-                next();
-                buf.append('-');
-            }
-            Digits digits3 = readDigits(buf);
-            if (digits3 == Digits.NONE) {
-                throw new JSONParseException(index, line, column, "Exponent must have at least one digit");
-            }
+            exponent = readExponent();
         }
         Object value;
-        if (isign != 0 && !floating && digits1 == Digits.ONLY_ZERO) {
+        if (floating) {
+            value = floatValue(isign < 0, mantissaExponent + exponent);
+        } else if (isign != 0 && significantDigits == 0) {
             value = valueFactory.zeroValue(isign);
         } else {
-            String absNum = buf.toString();
-            if (floating) {
-                value = valueFactory.floatValue(isign < 0 ? "-" + absNum : absNum);
-            } else {
-                value = valueFactory.intValue(isign < 0 ? -1 : 1, absNum);
-            }
+            value = intValue(isign < 0);
         }
-        return new JSONToken(floating ? JSONTokenType.FLOAT : JSONTokenType.INT, null, value, index, line, column);
+        token(floating ? JSONTokenType.FLOAT : JSONTokenType.INT, null, value);
     }
 
     private String parseIdent() throws IOException {
-        StringBuilder buf = new StringBuilder();
-        buf.append((char) ch());
-        next();
-        while (true) {
-            int ch = ch();
-            if (Character.isJavaIdentifierPart(ch)) {
-                next();
-                buf.append((char) ch);
-            } else {
-                break;
+        StringBuilder str = scratch;
+        str.setLength(0);
+        str.append(buf[pos++]);
+        while (pos < len || fill()) {
+            int start = pos;
+            while (pos < len && Character.isJavaIdentifierPart(buf[pos])) {
+                pos++;
             }
+            str.append(buf, start, pos - start);
+            if (pos < len)
+                break;
         }
-        return buf.toString();
+        return str.toString();
+    }
+
+    private boolean matchLiteral(String literal) {
+        int end = pos + literal.length();
+        if (end >= len)
+            return false;
+        for (int i = 0; i < literal.length(); i++) {
+            if (buf[pos + i] != literal.charAt(i))
+                return false;
+        }
+        if (Character.isJavaIdentifierPart(buf[end]))
+            return false;
+        pos = end;
+        return true;
+    }
+
+    /**
+     * Fast path for case-sensitive {@code true/false/null} lying entirely within the window:
+     * does not build identifier string
+     */
+    private boolean parseLiteral(int ch) {
+        if (ch == 't' && matchLiteral("true")) {
+            token(JSONTokenType.TRUE, "true", valueFactory.boolValue(true));
+        } else if (ch == 'f' && matchLiteral("false")) {
+            token(JSONTokenType.FALSE, "false", valueFactory.boolValue(false));
+        } else if (ch == 'n' && matchLiteral("null")) {
+            token(JSONTokenType.NULL, "null", valueFactory.nullValue());
+        } else {
+            return false;
+        }
+        return true;
     }
 
     private boolean isValue(String ident, String valueText) {
@@ -335,14 +692,104 @@ public final class JSONLexer {
         }
     }
 
-    private JSONToken parseToken() throws IOException {
+    /**
+     * Skips whitespace and remembers the token location
+     *
+     * @return first char of the token or -1 at the end of input
+     */
+    private int startToken() throws IOException {
         skipSpaces();
         int ch = ch();
-        long index = this.index;
+        tokenIndex = index();
+        if (trackLines) {
+            tokenLine = line;
+            tokenColumn = column(tokenIndex);
+        }
+        return ch;
+    }
+
+    private void skipString(char quote) throws IOException {
+        long index = index();
         int line = this.line;
-        int column = this.column;
-        if (ch < 0)
-            return new JSONToken(JSONTokenType.EOF, null, index, line, column);
+        int column = column(index);
+        pos++;
+        while (true) {
+            if (pos >= len && !fill()) {
+                throw error(index, line, column, "String is not terminated");
+            }
+            char ch = buf[pos++];
+            if (ch == quote)
+                break;
+            if (ch == '\\') {
+                if (pos >= len && !fill())
+                    continue;
+                ch = buf[pos++];
+            }
+            if (trackLines && (ch == '\r' || ch == '\n')) {
+                newLine(ch, index() - 1);
+            }
+        }
+    }
+
+    private static boolean isDelimiter(char ch) {
+        return ch <= ' ' || ch == ',' || ch == ':' || ch == '{' || ch == '}' || ch == '[' || ch == ']' ||
+               ch == '"' || ch == '\'' || ch == '/';
+    }
+
+    private void skipValue(int depth, int nestingLevel, int maxNestingLevel) throws IOException {
+        if (depth == 0) {
+            int ch = startToken();
+            if (ch == '"' || (ch == '\'' && singleQuotes)) {
+                skipString((char) ch);
+                return;
+            }
+            if (ch != '{' && ch != '[') {
+                int start = pos;
+                while ((pos < len || fill()) && !isDelimiter(buf[pos])) {
+                    pos++;
+                }
+                if (pos == start) {
+                    // Let the lexer report an error
+                    parseToken(false, null);
+                }
+                return;
+            }
+        }
+        do {
+            if (pos >= len && !fill()) {
+                throw error("Unexpected end of input");
+            }
+            char ch = buf[pos];
+            if (ch == '"' || (ch == '\'' && singleQuotes)) {
+                skipString(ch);
+            } else if (ch == '/' && comments) {
+                skipComment();
+            } else {
+                if (ch == '{' || ch == '[') {
+                    depth++;
+                    if (maxNestingLevel >= 0 && nestingLevel + depth > maxNestingLevel) {
+                        throw error("Maximum nesting level " + maxNestingLevel + " reached");
+                    }
+                } else if (ch == '}' || ch == ']') {
+                    depth--;
+                } else if (trackLines && (ch == '\r' || ch == '\n')) {
+                    newLine(ch, index());
+                }
+                pos++;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * @param key   if the token is an object key (and not a value)
+     * @param names if not null, key is looked up in these names and is not created when not found
+     */
+    private void parseToken(boolean key, FieldNames names) throws IOException {
+        int ch = startToken();
+        if (ch < 0) {
+            token(JSONTokenType.EOF, null, null);
+            return;
+        }
         JSONTokenType stype;
         if (ch == '{') {
             stype = JSONTokenType.LCURLY;
@@ -360,15 +807,17 @@ public final class JSONLexer {
             stype = null;
         }
         if (stype != null) {
-            next();
-            return new JSONToken(stype, null, index, line, column);
+            pos++;
+            token(stype, null, null);
         } else if (ch == '"' || ch == '\'') {
             if (!singleQuotes && ch == '\'') {
-                throw new JSONParseException(index, line, column, "Single quotes are not allowed");
+                throw tokenError("Single quotes are not allowed");
             }
-            return parseString(index, line, column, ch);
+            parseString(ch, key ? keyCache : valueCache, names);
         } else if ((ch >= '0' && ch <= '9') || ch == '+' || ch == '-' || ch == '.') {
-            return parseNumber(index, line, column);
+            parseNumber();
+        } else if (!caseInsensitive && parseLiteral(ch)) {
+            // true/false/null
         } else if (Character.isJavaIdentifierStart(ch)) {
             String ident = parseIdent();
             JSONTokenType type;
@@ -391,17 +840,151 @@ public final class JSONLexer {
             } else {
                 type = JSONTokenType.IDENT;
             }
-            return new JSONToken(type, ident, value, index, line, column);
+            if (names != null) {
+                ident = names.find(ident);
+            } else if (key && keyCache != null) {
+                ident = keyCache.intern(ident);
+            }
+            token(type, ident, value);
         } else {
-            throw new JSONParseException(index, line, column, "Unexpected character '" + (char) ch + "'");
+            throw tokenError("Unexpected character '" + (char) ch + "'");
         }
     }
 
-    public JSONToken nextToken() {
+    /**
+     * Moves to the next token without allocating it: token data is kept in the lexer fields
+     */
+    public void next() {
+        try {
+            parseToken(false, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Same as {@link #next()}, but the next token is expected to be an object key
+     */
+    public void nextKey() {
+        try {
+            parseToken(true, null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Same as {@link #nextKey()}, but keys not from {@code names} are not created: token text is null for them
+     */
+    void nextKey(FieldNames names) {
+        try {
+            parseToken(true, names);
+            if (tokenText != null && tokenType != JSONTokenType.STRING && tokenType != JSONTokenType.IDENT) {
+                // true/false/null literals
+                tokenText = names.find(tokenText);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Moves to the start of the next token without parsing it (current token is not changed, except its location)
+     *
+     * @return first char of the next token or -1 at the end of input
+     */
+    int peek() {
         try {
-            return parseToken();
+            return startToken();
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
+
+    /**
+     * @return index of the next char to read
+     */
+    long position() {
+        return index();
+    }
+
+    /**
+     * Remembers the position before reading a token, which may turn out to be incomplete
+     */
+    void mark() {
+        markPos = pos;
+        markBase = base;
+        markLine = line;
+        markLineStart = lineStart;
+        markLastCR = lastCR;
+    }
+
+    /**
+     * Returns to the position remembered by {@link #mark()}
+     */
+    void reset() {
+        pos = markPos;
+        base = markBase;
+        line = markLine;
+        lineStart = markLineStart;
+        lastCR = markLastCR;
+        eof = false;
+    }
+
+    /**
+     * @return position in the current window
+     */
+    int windowPos() {
+        return pos;
+    }
+
+    /**
+     * Takes the window of the input again after characters were appended to it
+     * or the first {@code shift} characters were removed from it
+     */
+    void resync(int shift) {
+        buf = input.buf;
+        len = input.len;
+        pos -= shift;
+        base += shift;
+        eof = false;
+    }
+
+    /**
+     * Skips the value at the current position matching only brackets and quotes:
+     * skipped strings and numbers are neither validated nor created.
+     *
+     * @param depth        0 to skip the next value, 1 to skip the rest of the current array or object
+     * @param nestingLevel nesting level of the current array or object
+     */
+    void skip(int depth, int nestingLevel, int maxNestingLevel) {
+        try {
+            skipValue(depth, nestingLevel, maxNestingLevel);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return current token
+     */
+    public JSONToken token() {
+        int line = tokenLine;
+        int column = tokenColumn;
+        if (!trackLines) {
+            if (rescanLines(tokenIndex)) {
+                line = this.line;
+                column = column(tokenIndex);
+            } else {
+                line = 0;
+                column = 0;
+            }
+        }
+        return new JSONToken(tokenType, tokenText, tokenValue, tokenIndex, line, column);
+    }
+
+    public JSONToken nextToken() {
+        next();
+        return token();
+    }
 }
@@ -0,0 +1,278 @@
+package smalljson.parser;
+
+import smalljson.JSONParseException;
+import smalljson.JSONParseOptions;
+import smalljson.JSONRuntimeException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reads <a href="https://jsonlines.org/">JSON Lines</a> (NDJSON) input: one JSON value per line, empty lines are ignored.
+ * Parse errors report line number in the input.
+ * <p>
+ * In parallel mode input is read by the calling thread and cut into chunks of lines,
+ * which are parsed in parallel by the executor (usually {@link ForkJoinPool}).
+ * Values are returned in the input order if required, otherwise in order of parsing.
+ */
+public final class JSONLinesReader implements Iterator<Object>, AutoCloseable {
+
+    private static final int CHUNK_CHARS = 64 * 1024;
+    private static final int CHUNK_LINES = 4096;
+
+    private static final class Chunk {
+
+        final List<String> lines = new ArrayList<>();
+        final int firstLine;
+        final long firstIndex;
+
+        Chunk(int firstLine, long firstIndex) {
+            this.firstLine = firstLine;
+            this.firstIndex = firstIndex;
+        }
+    }
+
+    private final JSONParseOptions options;
+    private final FastReader input;
+    private final ExecutorService executor;
+    private final int maxPending;
+    /**
+     * Parser of the sequential reader, null for parallel reader
+     */
+    private final LineParser lineParser;
+
+    private final Deque<Future<List<Object>>> pending = new ArrayDeque<>();
+    private final CompletionService<List<Object>> completion;
+
+    private int lineNumber = 0;
+    private long lineIndex = 0;
+    private boolean eof = false;
+    private List<Object> values = Collections.emptyList();
+    private int valueIndex = 0;
+
+    /**
+     * Creates sequential reader
+     */
+    public JSONLinesReader(JSONParseOptions options, FastReader input) {
+        this(options, input, null, true);
+    }
+
+    /**
+     * Creates parallel reader
+     *
+     * @param executor executor to parse lines; if null then lines are parsed sequentially by the calling thread
+     * @param ordered  if values should be returned in the input order
+     */
+    public JSONLinesReader(JSONParseOptions options, FastReader input, ExecutorService executor, boolean ordered) {
+        this.options = options;
+        this.input = FastReader.window(input);
+        this.executor = executor;
+        if (executor == null) {
+            this.maxPending = 0;
+            this.completion = null;
+            this.lineParser = new LineParser(options);
+        } else {
+            int parallelism = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+            this.maxPending = 2 * parallelism;
+            this.completion = ordered ? null : new ExecutorCompletionService<>(executor);
+            this.lineParser = null;
+        }
+    }
+
+    /**
+     * @return next line (without line terminator) or null at the end of input
+     */
+    private String readLine() throws IOException {
+        StringBuilder spill = null;
+        while (true) {
+            if (input.pos >= input.len) {
+                if (!input.fill()) {
+                    eof = true;
+                    return spill == null ? null : spill.toString();
+                }
+                continue;
+            }
+            char[] buf = input.buf;
+            int start = input.pos;
+            int len = input.len;
+            int pos = start;
+            while (pos < len && buf[pos] != '\n') {
+                pos++;
+            }
+            if (pos < len) {
+                input.pos = pos + 1;
+                if (spill == null)
+                    return input.substring(start, pos);
+                return spill.append(buf, start, pos - start).toString();
+            }
+            if (spill == null) {
+                spill = new StringBuilder();
+            }
+            spill.append(buf, start, len - start);
+            input.pos = len;
+        }
+    }
+
+    private static boolean isBlank(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses lines one by one reusing the same parser (used by one thread at a time)
+     */
+    private static final class LineParser {
+
+        private final JSONParseOptions options;
+        private final FastStringReader reader;
+        private JSONParser parser = null;
+
+        LineParser(JSONParseOptions options) {
+            this.options = options;
+            this.reader = new FastStringReader(options.bufferSize);
+        }
+
+        Object parse(String line, int lineNumber, long lineIndex) {
+            try {
+                reader.reset(line);
+                if (parser == null) {
+                    parser = new JSONParser(options, reader);
+                } else {
+                    parser.reset(reader);
+                }
+                return parser.parse();
+            } catch (JSONParseException ex) {
+                long index = ex.index >= 0 ? lineIndex + ex.index : -1;
+                throw new JSONParseException(index, lineNumber, ex.line == 1 ? ex.column : 0, ex.getRawMessage());
+            }
+        }
+    }
+
+    private static List<Object> parseChunk(JSONParseOptions options, Chunk chunk) {
+        LineParser parser = new LineParser(options);
+        List<Object> values = new ArrayList<>(chunk.lines.size());
+        int lineNumber = chunk.firstLine;
+        long lineIndex = chunk.firstIndex;
+        for (String line : chunk.lines) {
+            if (!isBlank(line)) {
+                values.add(parser.parse(line, lineNumber, lineIndex));
+            }
+            lineNumber++;
+            lineIndex += line.length() + 1;
+        }
+        return values;
+    }
+
+    /**
+     * @return next chunk of lines or null at the end of input
+     */
+    private Chunk readChunk() throws IOException {
+        Chunk chunk = new Chunk(lineNumber + 1, lineIndex);
+        int chars = 0;
+        while (!eof && chunk.lines.size() < CHUNK_LINES && chars < CHUNK_CHARS) {
+            String line = readLine();
+            if (line == null)
+                break;
+            lineNumber++;
+            lineIndex += line.length() + 1;
+            chars += line.length();
+            chunk.lines.add(line);
+        }
+        return chunk.lines.isEmpty() ? null : chunk;
+    }
+
+    private void submitChunks() throws IOException {
+        while (!eof && pending.size() < maxPending) {
+            Chunk chunk = readChunk();
+            if (chunk == null)
+                break;
+            Callable<List<Object>> task = () -> parseChunk(options, chunk);
+            pending.add(completion != null ? completion.submit(task) : executor.submit(task));
+        }
+    }
+
+    private static List<Object> get(Future<List<Object>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JSONRuntimeException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new JSONRuntimeException(cause);
+        }
+    }
+
+    private List<Object> nextValues() throws IOException {
+        if (executor == null) {
+            while (true) {
+                String line = readLine();
+                if (line == null)
+                    return null;
+                lineNumber++;
+                long index = lineIndex;
+                lineIndex += line.length() + 1;
+                if (!isBlank(line))
+                    return Collections.singletonList(lineParser.parse(line, lineNumber, index));
+            }
+        }
+        submitChunks();
+        if (pending.isEmpty())
+            return null;
+        if (completion == null) {
+            return get(pending.removeFirst());
+        }
+        Future<List<Object>> done;
+        try {
+            done = completion.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JSONRuntimeException(ex);
+        }
+        pending.remove(done);
+        return get(done);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (valueIndex >= values.size()) {
+                List<Object> next = nextValues();
+                if (next == null)
+                    return false;
+                values = next;
+                valueIndex = 0;
+            }
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return values.get(valueIndex++);
+    }
+
+    /**
+     * Cancels parsing of the chunks not read yet (does not close the input)
+     */
+    @Override
+    public void close() {
+        for (Future<List<Object>> future : pending) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,181 @@
+package smalljson.parser;
+
+import smalljson.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses a single large document in parallel.
+ * <p>
+ * The first pass reads the document structure down to the split depth with {@link JSONStreamReader}
+ * (checking keys, commas, etc.) and skips values at the split depth matching only brackets and quotes,
+ * remembering their positions. Then these values are parsed in parallel and joined into the result tree.
+ * <p>
+ * Result is the same as of {@link JSONParser#parse()}; on errors the document is parsed sequentially
+ * to report the same error as {@link JSONParser}.
+ * <p>
+ * Values are created by several threads of the pool at once, so {@link JSONParseOptions#valueFactory}
+ * must be thread-safe (the default and compact factories are). String caches are thread-safe by design.
+ */
+public final class JSONParallelParser {
+
+    /**
+     * Values are parsed by one task until their total length exceeds this threshold
+     */
+    private static final int TASK_CHARS = 64 * 1024;
+
+    private static final class Slice {
+
+        final int depth;
+        final int start;
+        final int end;
+        Object value;
+
+        Slice(int depth, int start, int end) {
+            this.depth = depth;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Container {
+
+        final boolean object;
+        final List<String> keys = new ArrayList<>();
+        /**
+         * {@link Slice}, {@link Container} or parsed value
+         */
+        final List<Object> values = new ArrayList<>();
+
+        Container(boolean object) {
+            this.object = object;
+        }
+    }
+
+    private final class ParseTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        ParseTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && slices.get(to - 1).end - slices.get(from).start > TASK_CHARS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(from, middle), new ParseTask(middle, to));
+            } else {
+                for (int i = from; i < to; i++) {
+                    Slice slice = slices.get(i);
+                    JSONParser parser = new JSONParser(sliceOptions[slice.depth], new FastStringReader(json, slice.start, slice.end));
+                    slice.value = parser.parse();
+                }
+            }
+        }
+    }
+
+    private final JSONParseOptions options;
+    private final String json;
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final JSONParseOptions[] sliceOptions;
+    private final List<Slice> slices = new ArrayList<>();
+
+    /**
+     * @param splitDepth depth of values to parse in parallel: 1 for elements/fields of the top-level array/object,
+     *                   2 for their elements/fields, and so on
+     */
+    public JSONParallelParser(JSONParseOptions options, String json, ForkJoinPool pool, int splitDepth) {
+        this.options = options;
+        this.json = json;
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        this.sliceOptions = new JSONParseOptions[splitDepth + 1];
+        for (int depth = 0; depth <= splitDepth; depth++) {
+            if (depth == 0 || options.maxNestingLevel < 0) {
+                sliceOptions[depth] = options;
+            } else {
+                // Values at this depth are already inside of depth arrays/objects:
+                sliceOptions[depth] = options.copy().maxNestingLevel(Math.max(options.maxNestingLevel - depth, 0)).buildOptions();
+            }
+        }
+    }
+
+    private Object scan(JSONStreamReader reader) {
+        int depth = reader.getDepth();
+        if (reader.isMissingValue())
+            return reader.getValue();
+        if (depth >= splitDepth) {
+            int start = (int) reader.valueIndex();
+            reader.skipValue();
+            Slice slice = new Slice(depth, start, (int) reader.position());
+            slices.add(slice);
+            return slice;
+        }
+        JSONTokenType type = reader.getValueType();
+        if (type == JSONTokenType.LCURLY) {
+            Container container = new Container(true);
+            reader.beginObject();
+            while (reader.nextField()) {
+                container.keys.add(reader.getFieldName());
+                container.values.add(scan(reader));
+            }
+            return container;
+        } else if (type == JSONTokenType.LSQUARE) {
+            Container container = new Container(false);
+            reader.beginArray();
+            while (reader.nextValue()) {
+                container.values.add(scan(reader));
+            }
+            return container;
+        } else {
+            return reader.getValue();
+        }
+    }
+
+    private Object join(Object value) {
+        if (value instanceof Slice) {
+            return ((Slice) value).value;
+        } else if (value instanceof Container) {
+            Container container = (Container) value;
+            if (container.object) {
+                Map<String, Object> object = options.valueFactory.objectValue();
+                for (int i = 0; i < container.keys.size(); i++) {
+                    object.put(container.keys.get(i), join(container.values.get(i)));
+                }
+                return new JSONObject(options.valueFactory.completeObject(object));
+            } else {
+                List<Object> array = options.valueFactory.arrayValue();
+                for (Object element : container.values) {
+                    array.add(join(element));
+                }
+                return new JSONArray(options.valueFactory.completeArray(array));
+            }
+        } else {
+            return value;
+        }
+    }
+
+    public Object parse() {
+        Object root;
+        try {
+            JSONStreamReader reader = new JSONStreamReader(options, new FastStringReader(json));
+            reader.nextValue();
+            root = scan(reader);
+            reader.nextValue();
+            if (!slices.isEmpty()) {
+                pool.invoke(new ParseTask(0, slices.size()));
+            }
+        } catch (JSONParseException ex) {
+            return new JSONParser(options, new FastStringReader(json)).parse();
+        }
+        return join(root);
+    }
+}
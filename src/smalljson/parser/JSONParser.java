@@ -2,11 +2,18 @@ package smalljson.parser;
 
 import smalljson.*;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 public final class JSONParser {
 
+    private static final int INITIAL_STACK = 16;
+    /**
+     * Container stack larger than this is not kept by {@link #reset(FastReader)}
+     */
+    private static final int MAX_STACK = 256;
+
     private final JSONLexer lexer;
     private final JSONParseOptions options;
     private final boolean specialNumbers;
@@ -15,8 +22,10 @@ public final class JSONParser {
     private final boolean unquotedFields;
     private final boolean duplicateKeys;
     private final boolean extraChars;
-
-    private JSONToken current;
+    /**
+     * Containers of the value being parsed, {@code stack[0]} is the outermost one
+     */
+    private Container[] stack = new Container[INITIAL_STACK];
 
     public JSONParser(JSONParseOptions options, FastReader rdr) {
         this.lexer = new JSONLexer(options, rdr);
@@ -28,28 +37,48 @@ public final class JSONParser {
         this.duplicateKeys = options.features.contains(JSONFeature.DUPLICATE_FIELD_NAMES);
         this.extraChars = options.features.contains(JSONFeature.EXTRA_CHARS);
 
-        this.current = lexer.nextToken();
+        lexer.next();
+    }
+
+    /**
+     * Starts parsing another input with the same options, so that the parser (and its lexer) can be reused
+     */
+    public void reset(FastReader rdr) {
+        if (stack.length > MAX_STACK) {
+            stack = new Container[INITIAL_STACK];
+        } else {
+            for (Container container : stack) {
+                if (container == null)
+                    break;
+                container.clear();
+            }
+        }
+        lexer.reset(rdr);
+        lexer.next();
     }
 
     public void next() {
-        current = lexer.nextToken();
+        lexer.next();
     }
 
+    /**
+     * Creates token object on each call, so prefer not to call it in the loops
+     */
     public JSONToken getCurrent() {
-        return current;
+        return lexer.token();
     }
 
     private void require(JSONTokenType type, String message) {
-        if (current.type == type) {
+        if (lexer.tokenType == type) {
             next();
         } else {
-            throw new JSONParseException(current, message + ", but " + current.type + " found");
+            throw lexer.tokenError(message + ", but " + lexer.tokenType + " found");
         }
     }
 
     private void checkNestingLevel(int nestingLevel) {
         if (options.maxNestingLevel >= 0 && nestingLevel > options.maxNestingLevel) {
-            throw new JSONParseException(current, "Maximum nesting level " + options.maxNestingLevel + " reached");
+            throw lexer.tokenError("Maximum nesting level " + options.maxNestingLevel + " reached");
         }
     }
 
@@ -57,149 +86,239 @@ public final class JSONParser {
         START, COMMA, VALUE
     }
 
-    private JSONObject parseObject(int nestingLevel) {
-        checkNestingLevel(nestingLevel);
-        require(JSONTokenType.LCURLY, "Object must start with '{'");
-        Map<String, Object> object = options.valueFactory.objectValue();
-        PrevState prev = PrevState.START;
+    /**
+     * Object or array being parsed; instances are reused for the same nesting depth
+     */
+    private static final class Container {
+
+        /**
+         * Null for arrays
+         */
+        Map<String, Object> object;
+        /**
+         * Null for objects
+         */
+        List<Object> array;
+        PrevState prev;
+        /**
+         * Key of the object field which value is being parsed
+         */
+        String key;
+
+        void open(Map<String, Object> object, List<Object> array) {
+            this.object = object;
+            this.array = array;
+            this.prev = PrevState.START;
+        }
+
+        void add(Object value) {
+            if (object != null) {
+                object.put(key, value);
+                key = null;
+            } else {
+                array.add(value);
+            }
+            prev = PrevState.VALUE;
+        }
+
+        Object close(JSONValueFactory valueFactory) {
+            Object result = object != null ? new JSONObject(valueFactory.completeObject(object)) : new JSONArray(valueFactory.completeArray(array));
+            clear();
+            return result;
+        }
+
+        void clear() {
+            object = null;
+            array = null;
+            key = null;
+        }
+    }
+
+    private Container push(int depth, Map<String, Object> object, List<Object> array) {
+        if (depth >= stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        Container container = stack[depth];
+        if (container == null) {
+            container = stack[depth] = new Container();
+        }
+        container.open(object, array);
+        return container;
+    }
+
+    /**
+     * Moves to the next field of the object (or its end)
+     *
+     * @return false if the object is closed, true if the field value should be parsed
+     */
+    private boolean nextField(Container container) {
         while (true) {
-            JSONTokenType type = current.type;
+            JSONTokenType type = lexer.tokenType;
             if (type == JSONTokenType.COMMA) {
-                if (prev != PrevState.VALUE) {
-                    throw new JSONParseException(current, "Extra comma in object");
+                if (container.prev != PrevState.VALUE) {
+                    throw lexer.tokenError("Extra comma in object");
                 }
-                next();
-                prev = PrevState.COMMA;
+                lexer.nextKey();
+                container.prev = PrevState.COMMA;
             } else if (type == JSONTokenType.RCURLY) {
-                if (prev == PrevState.COMMA) {
+                if (container.prev == PrevState.COMMA) {
                     if (!allowTrailingComma) {
-                        throw new JSONParseException(current, "Trailing comma in object");
+                        throw lexer.tokenError("Trailing comma in object");
                     }
                 }
                 next();
-                break;
+                return false;
             } else {
-                if (prev == PrevState.VALUE) {
-                    throw new JSONParseException(current, "Missing comma in object");
+                if (container.prev == PrevState.VALUE) {
+                    throw lexer.tokenError("Missing comma in object");
                 }
                 String key;
                 if (type == JSONTokenType.STRING || type == JSONTokenType.IDENT ||
                     type == JSONTokenType.TRUE || type == JSONTokenType.FALSE || type == JSONTokenType.NULL ||
                     type == JSONTokenType.IDENT_FLOAT) {
                     if (!unquotedFields && type != JSONTokenType.STRING) {
-                        throw new JSONParseException(current, "Unquoted field names are not allowed");
+                        throw lexer.tokenError("Unquoted field names are not allowed");
                     }
-                    key = current.text;
-                    if (!duplicateKeys && object.containsKey(key)) {
-                        throw new JSONParseException(current, "Duplicate key '" + key + "' in object");
+                    key = lexer.tokenText;
+                    if (!duplicateKeys && container.object.containsKey(key)) {
+                        throw lexer.tokenError("Duplicate key '" + key + "' in object");
                     }
                     next();
                 } else {
-                    throw new JSONParseException(current, "Expected field name but found " + type);
+                    throw lexer.tokenError("Expected field name but found " + type);
                 }
                 require(JSONTokenType.COLON, "Expected colon after key");
-                Object value = parse(nestingLevel);
-                object.put(key, value);
-                prev = PrevState.VALUE;
+                container.key = key;
+                return true;
             }
         }
-        return new JSONObject(object);
     }
 
-    public JSONObject parseObject() {
-        JSONObject result = parseObject(1);
-        checkEOF();
-        return result;
-    }
-
-    private JSONArray parseArray(int nestingLevel) {
-        checkNestingLevel(nestingLevel);
-        require(JSONTokenType.LSQUARE, "Array must start with '['");
-        List<Object> array = options.valueFactory.arrayValue();
-        PrevState prev = PrevState.START;
+    /**
+     * Moves to the next element of the array (or its end)
+     *
+     * @return false if the array is closed, true if the element should be parsed
+     */
+    private boolean nextElement(Container container) {
         while (true) {
-            JSONTokenType type = current.type;
+            JSONTokenType type = lexer.tokenType;
             if (type == JSONTokenType.COMMA) {
-                if (prev != PrevState.VALUE) {
+                if (container.prev != PrevState.VALUE) {
                     if (allowMissingValues) {
-                        array.add(options.valueFactory.nullValue());
+                        container.array.add(options.valueFactory.nullValue());
                     } else {
-                        throw new JSONParseException(current, "Extra comma in array");
+                        throw lexer.tokenError("Extra comma in array");
                     }
                 }
                 next();
-                prev = PrevState.COMMA;
+                container.prev = PrevState.COMMA;
             } else if (type == JSONTokenType.RSQUARE) {
-                if (prev == PrevState.COMMA) {
+                if (container.prev == PrevState.COMMA) {
                     if (allowTrailingComma) {
                         // do nothing
                     } else if (allowMissingValues) {
-                        array.add(options.valueFactory.nullValue());
+                        container.array.add(options.valueFactory.nullValue());
                     } else {
-                        throw new JSONParseException(current, "Trailing comma in array");
+                        throw lexer.tokenError("Trailing comma in array");
                     }
                 }
                 next();
-                break;
+                return false;
             } else {
-                if (prev == PrevState.VALUE) {
-                    throw new JSONParseException(current, "Missing comma in array");
+                if (container.prev == PrevState.VALUE) {
+                    throw lexer.tokenError("Missing comma in array");
                 }
-                Object value = parse(nestingLevel);
-                array.add(value);
-                prev = PrevState.VALUE;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Parses value without recursion: nested objects and arrays are kept in {@link #stack},
+     * so the depth is limited only by {@link JSONParseOptions#maxNestingLevel}, not by the thread stack size
+     */
+    private Object parseValue() {
+        int depth = 0;
+        while (true) {
+            // Start of a value:
+            JSONTokenType type = lexer.tokenType;
+            Container container;
+            if (type == JSONTokenType.LCURLY) {
+                checkNestingLevel(depth + 1);
+                lexer.nextKey();
+                container = push(depth++, options.valueFactory.objectValue(), null);
+            } else if (type == JSONTokenType.LSQUARE) {
+                checkNestingLevel(depth + 1);
+                next();
+                container = push(depth++, null, options.valueFactory.arrayValue());
+            } else {
+                Object value = parsePrimitive();
+                if (depth == 0)
+                    return value;
+                container = stack[depth - 1];
+                container.add(value);
+            }
+            // Close containers until a value is expected:
+            while (container.object != null ? !nextField(container) : !nextElement(container)) {
+                Object value = container.close(options.valueFactory);
+                if (--depth == 0)
+                    return value;
+                container = stack[depth - 1];
+                container.add(value);
             }
         }
-        return new JSONArray(array);
+    }
+
+    public JSONObject parseObject() {
+        checkNestingLevel(1);
+        if (lexer.tokenType != JSONTokenType.LCURLY) {
+            throw lexer.tokenError("Object must start with '{', but " + lexer.tokenType + " found");
+        }
+        JSONObject result = (JSONObject) parseValue();
+        checkEOF();
+        return result;
     }
 
     public JSONArray parseArray() {
-        JSONArray result = parseArray(1);
+        checkNestingLevel(1);
+        if (lexer.tokenType != JSONTokenType.LSQUARE) {
+            throw lexer.tokenError("Array must start with '[', but " + lexer.tokenType + " found");
+        }
+        JSONArray result = (JSONArray) parseValue();
         checkEOF();
         return result;
     }
 
     public Object parsePrimitive() {
-        JSONTokenType type = current.type;
+        JSONTokenType type = lexer.tokenType;
         Object result;
         if (type == JSONTokenType.STRING) {
-            result = current.text;
+            result = lexer.tokenText;
         } else if (type == JSONTokenType.FLOAT || type == JSONTokenType.INT) {
-            result = current.value;
+            result = lexer.tokenValue;
         } else if (type == JSONTokenType.NULL || type == JSONTokenType.TRUE || type == JSONTokenType.FALSE) {
-            result = current.value;
+            result = lexer.tokenValue;
         } else if (type == JSONTokenType.IDENT_FLOAT) {
             if (!specialNumbers) {
-                throw new JSONParseException(current, "Use of non-numeric floating point numbers not allowed");
+                throw lexer.tokenError("Use of non-numeric floating point numbers not allowed");
             }
-            result = current.value;
+            result = lexer.tokenValue;
         } else {
-            throw new JSONParseException(current, "Unexpected token " + current.type);
+            throw lexer.tokenError("Unexpected token " + lexer.tokenType);
         }
         next();
         return result;
     }
 
-    private Object parse(int nestingLevel) {
-        JSONTokenType type = current.type;
-        if (type == JSONTokenType.LCURLY) {
-            return parseObject(nestingLevel + 1);
-        } else if (type == JSONTokenType.LSQUARE) {
-            return parseArray(nestingLevel + 1);
-        } else {
-            return parsePrimitive();
-        }
-    }
-
     public Object parse() {
-        Object result = parse(0);
+        Object result = parseValue();
         checkEOF();
         return result;
     }
 
     public void checkEOF() {
-        if (!extraChars && current.type != JSONTokenType.EOF) {
-            throw new JSONParseException(current, "Extra character at the end");
+        if (!extraChars && lexer.tokenType != JSONTokenType.EOF) {
+            throw lexer.tokenError("Extra character at the end");
         }
     }
 }
@@ -0,0 +1,173 @@
+package smalljson.parser;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Set of paths to parse: values outside of these paths are skipped without creating them.
+ * <p>
+ * Paths are <a href="https://datatracker.ietf.org/doc/html/rfc6901">JSON Pointers</a> like {@code "/items/0/id"}:
+ * a path segment selects an object field or an array element by its index.
+ * Segment {@code "*"} selects all fields or elements; paths through {@code "*"} are combined with the paths
+ * through the named fields or elements at the same level, so that every path in the set is selected.
+ * Field literally named {@code "*"} is selected by segment {@code "~*"}.
+ * If a path goes inside a value which is neither object nor array, the value is dropped.
+ * <p>
+ * Projected arrays contain only the selected elements (in the original order).
+ */
+public final class JSONProjection {
+
+    static final class Node {
+
+        /**
+         * Null for leaf nodes: the whole value is selected
+         */
+        final Map<String, Node> children;
+        Node any = null;
+        FieldNames names = null;
+        Map<Integer, Node> indexes = null;
+
+        Node(boolean leaf) {
+            this.children = leaf ? null : new LinkedHashMap<>();
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+
+        Node field(String name) {
+            Node child = children.get(name);
+            return child != null ? child : any;
+        }
+
+        Node element(int index) {
+            Node child = indexes.get(index);
+            return child != null ? child : any;
+        }
+
+        /**
+         * @return node selecting the paths of both nodes (the nodes are not changed)
+         */
+        static Node union(Node node1, Node node2) {
+            if (node1 == null || (node2 != null && node2.isLeaf()))
+                return node2;
+            if (node2 == null || node1.isLeaf())
+                return node1;
+            Node union = new Node(false);
+            union.children.putAll(node1.children);
+            for (Map.Entry<String, Node> entry : node2.children.entrySet()) {
+                union.children.merge(entry.getKey(), entry.getValue(), Node::union);
+            }
+            union.any = union(node1.any, node2.any);
+            return union;
+        }
+
+        void compile() {
+            if (children == null || names != null)
+                return;
+            names = new FieldNames(children.keySet());
+            indexes = new HashMap<>();
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                // Named fields or elements are also selected by "*":
+                Node child = union(entry.getValue(), any);
+                entry.setValue(child);
+                child.compile();
+                Integer index = parseIndex(entry.getKey());
+                if (index != null) {
+                    indexes.put(index, child);
+                }
+            }
+            if (any != null) {
+                any.compile();
+            }
+        }
+    }
+
+    final Node root;
+
+    private JSONProjection(Node root) {
+        this.root = root;
+    }
+
+    private static Integer parseIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9)
+            return null;
+        for (int i = 0; i < segment.length(); i++) {
+            char ch = segment.charAt(i);
+            if (ch < '0' || ch > '9')
+                return null;
+        }
+        if (segment.length() > 1 && segment.charAt(0) == '0')
+            return null;
+        return Integer.valueOf(segment);
+    }
+
+    private static String unescape(String pointer, String segment) {
+        if (segment.indexOf('~') < 0)
+            return segment;
+        StringBuilder buf = new StringBuilder(segment.length());
+        for (int i = 0; i < segment.length(); i++) {
+            char ch = segment.charAt(i);
+            if (ch == '~') {
+                char next = i + 1 < segment.length() ? segment.charAt(++i) : 0;
+                if (next == '0') {
+                    buf.append('~');
+                } else if (next == '1') {
+                    buf.append('/');
+                } else if (next == '*') {
+                    buf.append('*');
+                } else {
+                    throw new IllegalArgumentException("Invalid escape in JSON pointer '" + pointer + "'");
+                }
+            } else {
+                buf.append(ch);
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * @param pointers JSON pointers; empty pointer selects the whole document
+     */
+    public static JSONProjection of(Collection<String> pointers) {
+        Node root = new Node(false);
+        for (String pointer : pointers) {
+            if (!pointer.isEmpty() && pointer.charAt(0) != '/') {
+                throw new IllegalArgumentException("JSON pointer '" + pointer + "' must start with '/'");
+            }
+            if (pointer.isEmpty()) {
+                root = new Node(true);
+                break;
+            }
+            Node node = root;
+            String[] segments = pointer.substring(1).split("/", -1);
+            for (int i = 0; i < segments.length && !node.isLeaf(); i++) {
+                boolean last = i == segments.length - 1;
+                boolean any = "*".equals(segments[i]);
+                String name = any ? null : unescape(pointer, segments[i]);
+                Node child = any ? node.any : node.children.get(name);
+                if (child == null || (last && !child.isLeaf())) {
+                    child = new Node(last);
+                    if (any) {
+                        node.any = child;
+                    } else {
+                        node.children.put(name, child);
+                    }
+                }
+                node = child;
+            }
+        }
+        root.compile();
+        return new JSONProjection(root);
+    }
+
+    /**
+     * @param pointers JSON pointers; empty pointer selects the whole document
+     */
+    public static JSONProjection of(String... pointers) {
+        return of(Arrays.asList(pointers));
+    }
+}
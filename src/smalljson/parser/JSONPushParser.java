@@ -0,0 +1,510 @@
+package smalljson.parser;
+
+import smalljson.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking parser: UTF-8 input is pushed to it in chunks by {@link #feed(ByteBuffer)} as the chunks arrive
+ * (for example, from a non-blocking channel), and {@link #endOfInput()} marks the end of input.
+ * Parsed values are passed to the consumer as soon as they are complete: either the whole document,
+ * or elements of the top-level array one by one.
+ * <p>
+ * All {@link JSONFeature}s are supported, results and errors are the same as of {@link JSONParser}.
+ * Chunk boundaries can be anywhere, even inside of strings, escapes, numbers or UTF-8 sequences:
+ * the incomplete token is kept in the buffer and is read again when more input arrives
+ * (long tokens are read again when the buffered part of them doubles, so the total work stays linear,
+ * or earlier when the new characters can end the token).
+ * <p>
+ * Errors are thrown by {@link #feed(ByteBuffer)} or {@link #endOfInput()}, after that the parser cannot be used.
+ */
+public final class JSONPushParser {
+
+    private static final char REPLACEMENT = 0xFFFD;
+
+    /**
+     * Window with all characters which are not consumed by the lexer yet
+     */
+    private static final class PushReader extends FastReader {
+
+        /**
+         * Is set when the lexer reaches the end of the characters available
+         */
+        boolean exhausted = false;
+
+        PushReader() {
+            this.buf = new char[8192];
+        }
+
+        @Override
+        protected boolean fill() {
+            exhausted = true;
+            return false;
+        }
+    }
+
+    private enum PrevState {
+        START, COMMA, VALUE
+    }
+
+    private enum Expect {
+        MEMBER, COLON, VALUE
+    }
+
+    private static final class Container {
+
+        /**
+         * Null for arrays
+         */
+        final Map<String, Object> object;
+        /**
+         * Null for objects and for the top-level array when its elements are passed to the consumer
+         */
+        final List<Object> array;
+        PrevState prev = PrevState.START;
+        Expect expect = Expect.MEMBER;
+        String key = null;
+
+        Container(Map<String, Object> object, List<Object> array) {
+            this.object = object;
+            this.array = array;
+        }
+    }
+
+    private final JSONParseOptions options;
+    private final boolean arrayElements;
+    private final Consumer<Object> consumer;
+    private final boolean specialNumbers;
+    private final boolean allowMissingValues;
+    private final boolean allowTrailingComma;
+    private final boolean unquotedFields;
+    private final boolean duplicateKeys;
+    private final boolean extraChars;
+
+    private final PushReader reader = new PushReader();
+    private final JSONLexer lexer;
+
+    // UTF-8 sequence being decoded:
+    private int need = 0;
+    private int codePoint;
+    private int lo;
+    private int hi;
+
+    private final List<Container> stack = new ArrayList<>();
+    private boolean keyNext = false;
+    private boolean rootDone = false;
+    private Object root = null;
+    private boolean done = false;
+    private boolean endOfInput = false;
+    /**
+     * Incomplete token is read again only when at least this number of characters is available
+     */
+    private int retryChars = 0;
+    /**
+     * Window length when the incomplete token was read last time: only characters after it are new
+     */
+    private int retryLen = 0;
+    /**
+     * Quote of the incomplete string token, or 0 if the incomplete token is not a string
+     */
+    private char retryQuote = 0;
+    private RuntimeException failure = null;
+
+    /**
+     * @param arrayElements if true then the document must be an array, and its elements are passed to the consumer
+     *                      as soon as they are parsed; if false then the whole document is passed to the consumer
+     *                      when the end of input is reached
+     */
+    public JSONPushParser(JSONParseOptions options, boolean arrayElements, Consumer<Object> consumer) {
+        this.options = options;
+        this.arrayElements = arrayElements;
+        this.consumer = consumer;
+        this.specialNumbers = options.features.contains(JSONFeature.NAN_INF_NUMBERS);
+        this.allowMissingValues = options.features.contains(JSONFeature.ARRAY_MISSING_VALUES);
+        this.allowTrailingComma = options.features.contains(JSONFeature.TRAILING_COMMA);
+        this.unquotedFields = options.features.contains(JSONFeature.UNQUOTED_FIELD_NAMES);
+        this.duplicateKeys = options.features.contains(JSONFeature.DUPLICATE_FIELD_NAMES);
+        this.extraChars = options.features.contains(JSONFeature.EXTRA_CHARS);
+        this.lexer = new JSONLexer(options, reader);
+    }
+
+    /**
+     * Parses the next chunk of input (all bytes from position to limit are consumed)
+     */
+    public void feed(ByteBuffer bytes) {
+        checkState();
+        reserve(bytes.remaining() + 4);
+        decode(bytes);
+        run();
+    }
+
+    /**
+     * Marks the end of input: parsing is finished and the document is passed to the consumer
+     */
+    public void endOfInput() {
+        checkState();
+        endOfInput = true;
+        if (need > 0) {
+            // Incomplete UTF-8 sequence
+            reserve(1);
+            reader.buf[reader.len++] = REPLACEMENT;
+            need = 0;
+        }
+        run();
+    }
+
+    /**
+     * @return true if the document is parsed and passed to the consumer
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    private void checkState() {
+        if (failure != null)
+            throw failure;
+        if (endOfInput)
+            throw new IllegalStateException("End of input is already reached");
+    }
+
+    /**
+     * Makes room for {@code count} more characters in the window
+     */
+    private void reserve(int count) {
+        if (reader.buf.length - reader.len >= count)
+            return;
+        // Characters before the next token are not needed anymore:
+        int shift = lexer.windowPos();
+        System.arraycopy(reader.buf, shift, reader.buf, 0, reader.len - shift);
+        reader.len -= shift;
+        retryLen = Math.max(retryLen - shift, 0);
+        if (reader.buf.length - reader.len < count) {
+            reader.buf = Arrays.copyOf(reader.buf, Math.max(reader.buf.length * 2, reader.len + count));
+        }
+        lexer.resync(shift);
+    }
+
+    /**
+     * Decodes UTF-8 the same way as {@link FastByteReader} does, but the sequences can be split between chunks
+     */
+    private void decode(ByteBuffer bytes) {
+        char[] buf = reader.buf;
+        int n = reader.len;
+        if (bytes.hasArray()) {
+            byte[] array = bytes.array();
+            int offset = bytes.arrayOffset();
+            int end = offset + bytes.limit();
+            for (int p = offset + bytes.position(); p < end; p++) {
+                byte b = array[p];
+                if (b >= 0 && need == 0) {
+                    buf[n++] = (char) b;
+                } else {
+                    n = decode(buf, n, b & 0xFF);
+                }
+            }
+            bytes.position(bytes.limit());
+        } else {
+            while (bytes.hasRemaining()) {
+                n = decode(buf, n, bytes.get() & 0xFF);
+            }
+        }
+        reader.len = n;
+    }
+
+    private int decode(char[] buf, int n, int b) {
+        if (need > 0) {
+            if (b >= lo && b <= hi) {
+                codePoint = (codePoint << 6) | (b & 0x3F);
+                lo = 0x80;
+                hi = 0xBF;
+                if (--need == 0) {
+                    if (codePoint >= 0x10000) {
+                        buf[n++] = Character.highSurrogate(codePoint);
+                        buf[n++] = Character.lowSurrogate(codePoint);
+                    } else {
+                        buf[n++] = (char) codePoint;
+                    }
+                }
+                return n;
+            }
+            // Malformed sequence, byte b starts a new one:
+            buf[n++] = REPLACEMENT;
+            need = 0;
+        }
+        if (b < 0x80) {
+            buf[n++] = (char) b;
+        } else if (b >= 0xC2 && b <= 0xDF) {
+            start(1, b & 0x1F, 0x80, 0xBF);
+        } else if (b >= 0xE0 && b <= 0xEF) {
+            start(2, b & 0x0F, b == 0xE0 ? 0xA0 : 0x80, b == 0xED ? 0x9F : 0xBF);
+        } else if (b >= 0xF0 && b <= 0xF4) {
+            start(3, b & 0x07, b == 0xF0 ? 0x90 : 0x80, b == 0xF4 ? 0x8F : 0xBF);
+        } else {
+            buf[n++] = REPLACEMENT;
+        }
+        return n;
+    }
+
+    private void start(int need, int bits, int lo, int hi) {
+        this.need = need;
+        this.codePoint = bits;
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    private void run() {
+        lexer.resync(0);
+        try {
+            while (!done && lex()) {
+                process();
+            }
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads the next token
+     *
+     * @return false if the token can be incomplete, so more input is needed
+     */
+    private boolean lex() {
+        int start = lexer.windowPos();
+        if (!endOfInput && reader.len - start < retryChars && !canEndToken())
+            return false;
+        lexer.mark();
+        reader.exhausted = false;
+        try {
+            if (keyNext) {
+                lexer.nextKey();
+            } else {
+                lexer.next();
+            }
+            if (!reader.exhausted || endOfInput) {
+                retryChars = 0;
+                return true;
+            }
+        } catch (JSONParseException ex) {
+            if (!reader.exhausted || endOfInput)
+                throw ex;
+        }
+        lexer.reset();
+        retryChars = 2 * (reader.len - start);
+        retryLen = reader.len;
+        retryQuote = pendingQuote(start);
+        return false;
+    }
+
+    /**
+     * @return quote starting the incomplete token, or 0 if it is not a string
+     */
+    private char pendingQuote(int start) {
+        char[] buf = reader.buf;
+        for (int i = start; i < reader.len; i++) {
+            char ch = buf[i];
+            if (ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r')
+                continue;
+            return ch == '"' || ch == '\'' ? ch : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Checks if the characters which arrived after the last attempt to read the incomplete token can end it:
+     * closing quote (or control character) for strings, quote, structural or whitespace character for other tokens.
+     * Otherwise the token is not read again until its buffered part doubles.
+     */
+    private boolean canEndToken() {
+        char[] buf = reader.buf;
+        for (int i = retryLen; i < reader.len; i++) {
+            char ch = buf[i];
+            if (retryQuote != 0) {
+                if (ch < ' ' || (ch == retryQuote && !isEscaped(buf, i)))
+                    return true;
+            } else if (ch <= ' ' || ch == '"' || ch == '\'' || ch == ',' || ch == ':' || ch == '/'
+                       || ch == '[' || ch == ']' || ch == '{' || ch == '}') {
+                return true;
+            }
+        }
+        retryLen = reader.len;
+        return false;
+    }
+
+    private static boolean isEscaped(char[] buf, int i) {
+        int backslashes = 0;
+        for (int j = i - 1; j >= 0 && buf[j] == '\\'; j--) {
+            backslashes++;
+        }
+        return backslashes % 2 != 0;
+    }
+
+    private void checkNestingLevel(int nestingLevel) {
+        if (options.maxNestingLevel >= 0 && nestingLevel > options.maxNestingLevel) {
+            throw lexer.tokenError("Maximum nesting level " + options.maxNestingLevel + " reached");
+        }
+    }
+
+    private void process() {
+        JSONTokenType type = lexer.tokenType;
+        keyNext = false;
+        if (rootDone) {
+            if (!extraChars && type != JSONTokenType.EOF) {
+                throw lexer.tokenError("Extra character at the end");
+            }
+            done = true;
+            if (!arrayElements) {
+                consumer.accept(root);
+            }
+        } else if (stack.isEmpty()) {
+            if (arrayElements && type != JSONTokenType.LSQUARE) {
+                throw lexer.tokenError("Array must start with '[', but " + type + " found");
+            }
+            value(type);
+        } else {
+            Container top = stack.get(stack.size() - 1);
+            if (top.object != null) {
+                objectToken(top, type);
+            } else {
+                arrayToken(top, type);
+            }
+        }
+    }
+
+    private void value(JSONTokenType type) {
+        if (type == JSONTokenType.LCURLY) {
+            checkNestingLevel(stack.size() + 1);
+            stack.add(new Container(options.valueFactory.objectValue(), null));
+            keyNext = true;
+        } else if (type == JSONTokenType.LSQUARE) {
+            checkNestingLevel(stack.size() + 1);
+            boolean streamed = arrayElements && stack.isEmpty();
+            stack.add(new Container(null, streamed ? null : options.valueFactory.arrayValue()));
+        } else {
+            complete(primitive(type));
+        }
+    }
+
+    private Object primitive(JSONTokenType type) {
+        if (type == JSONTokenType.STRING) {
+            return lexer.tokenText;
+        } else if (type == JSONTokenType.FLOAT || type == JSONTokenType.INT) {
+            return lexer.tokenValue;
+        } else if (type == JSONTokenType.NULL || type == JSONTokenType.TRUE || type == JSONTokenType.FALSE) {
+            return lexer.tokenValue;
+        } else if (type == JSONTokenType.IDENT_FLOAT) {
+            if (!specialNumbers) {
+                throw lexer.tokenError("Use of non-numeric floating point numbers not allowed");
+            }
+            return lexer.tokenValue;
+        } else {
+            throw lexer.tokenError("Unexpected token " + type);
+        }
+    }
+
+    private void complete(Object value) {
+        if (stack.isEmpty()) {
+            root = value;
+            rootDone = true;
+            return;
+        }
+        Container top = stack.get(stack.size() - 1);
+        if (top.object != null) {
+            top.object.put(top.key, value);
+            top.expect = Expect.MEMBER;
+        } else {
+            add(top, value);
+        }
+        top.prev = PrevState.VALUE;
+    }
+
+    private void add(Container array, Object value) {
+        if (array.array != null) {
+            array.array.add(value);
+        } else {
+            consumer.accept(value);
+        }
+    }
+
+    private Container pop() {
+        return stack.remove(stack.size() - 1);
+    }
+
+    private void objectToken(Container top, JSONTokenType type) {
+        if (top.expect == Expect.COLON) {
+            if (type != JSONTokenType.COLON) {
+                throw lexer.tokenError("Expected colon after key, but " + type + " found");
+            }
+            top.expect = Expect.VALUE;
+        } else if (top.expect == Expect.VALUE) {
+            value(type);
+        } else if (type == JSONTokenType.COMMA) {
+            if (top.prev != PrevState.VALUE) {
+                throw lexer.tokenError("Extra comma in object");
+            }
+            keyNext = true;
+            top.prev = PrevState.COMMA;
+        } else if (type == JSONTokenType.RCURLY) {
+            if (top.prev == PrevState.COMMA) {
+                if (!allowTrailingComma) {
+                    throw lexer.tokenError("Trailing comma in object");
+                }
+            }
+            complete(new JSONObject(options.valueFactory.completeObject(pop().object)));
+        } else {
+            if (top.prev == PrevState.VALUE) {
+                throw lexer.tokenError("Missing comma in object");
+            }
+            if (type == JSONTokenType.STRING || type == JSONTokenType.IDENT ||
+                type == JSONTokenType.TRUE || type == JSONTokenType.FALSE || type == JSONTokenType.NULL ||
+                type == JSONTokenType.IDENT_FLOAT) {
+                if (!unquotedFields && type != JSONTokenType.STRING) {
+                    throw lexer.tokenError("Unquoted field names are not allowed");
+                }
+                String key = lexer.tokenText;
+                if (!duplicateKeys && top.object.containsKey(key)) {
+                    throw lexer.tokenError("Duplicate key '" + key + "' in object");
+                }
+                top.key = key;
+                top.expect = Expect.COLON;
+            } else {
+                throw lexer.tokenError("Expected field name but found " + type);
+            }
+        }
+    }
+
+    private void arrayToken(Container top, JSONTokenType type) {
+        if (type == JSONTokenType.COMMA) {
+            if (top.prev != PrevState.VALUE) {
+                if (allowMissingValues) {
+                    add(top, options.valueFactory.nullValue());
+                } else {
+                    throw lexer.tokenError("Extra comma in array");
+                }
+            }
+            top.prev = PrevState.COMMA;
+        } else if (type == JSONTokenType.RSQUARE) {
+            if (top.prev == PrevState.COMMA) {
+                if (allowTrailingComma) {
+                    // do nothing
+                } else if (allowMissingValues) {
+                    add(top, options.valueFactory.nullValue());
+                } else {
+                    throw lexer.tokenError("Trailing comma in array");
+                }
+            }
+            List<Object> array = pop().array;
+            complete(array == null ? null : new JSONArray(options.valueFactory.completeArray(array)));
+        } else {
+            if (top.prev == PrevState.VALUE) {
+                throw lexer.tokenError("Missing comma in array");
+            }
+            value(type);
+        }
+    }
+}
@@ -0,0 +1,615 @@
+package smalljson.parser;
+
+import smalljson.*;
+import smalljson.parser.JSONProjection.Node;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Pull parser which allows to read JSON step by step without creating {@link JSONObject}/{@link JSONArray}.
+ * <p>
+ * Typical usage:
+ * <pre>
+ * JSONStreamReader reader = factory.newStreamReader(rdr);
+ * reader.nextValue();
+ * reader.beginObject();
+ * while (reader.nextField()) {
+ *     if ("id".equals(reader.getFieldName())) {
+ *         id = reader.getLong();
+ *     }
+ *     // other values are skipped automatically
+ * }
+ * </pre>
+ * Values which are not read are skipped matching only brackets and quotes, so their contents are not validated.
+ */
+public final class JSONStreamReader {
+
+    private enum PrevState {
+        START, COMMA, VALUE
+    }
+
+    private enum ValueState {
+        /**
+         * No current value
+         */
+        NONE,
+        /**
+         * Lexer is positioned at the start of the current value
+         */
+        PEEKED,
+        /**
+         * Current value is the current lexer token
+         */
+        LEXED,
+        /**
+         * Current value is a missing array value ({@link JSONFeature#ARRAY_MISSING_VALUES})
+         */
+        MISSING
+    }
+
+    private static final class Container {
+
+        boolean object;
+        PrevState prev;
+        final Set<String> keys = new HashSet<>();
+    }
+
+    private final JSONLexer lexer;
+    private final JSONParseOptions options;
+    private final boolean specialNumbers;
+    private final boolean allowMissingValues;
+    private final boolean allowTrailingComma;
+    private final boolean unquotedFields;
+    private final boolean duplicateKeys;
+    private final boolean extraChars;
+
+    private final List<Container> containers = new ArrayList<>();
+    private int depth = 0;
+    private boolean rootRead = false;
+    private ValueState state = ValueState.NONE;
+    private int valueStart;
+    private String fieldName = null;
+
+    public JSONStreamReader(JSONParseOptions options, FastReader rdr) {
+        this.lexer = new JSONLexer(options, rdr);
+        this.options = options;
+        this.specialNumbers = options.features.contains(JSONFeature.NAN_INF_NUMBERS);
+        this.allowMissingValues = options.features.contains(JSONFeature.ARRAY_MISSING_VALUES);
+        this.allowTrailingComma = options.features.contains(JSONFeature.TRAILING_COMMA);
+        this.unquotedFields = options.features.contains(JSONFeature.UNQUOTED_FIELD_NAMES);
+        this.duplicateKeys = options.features.contains(JSONFeature.DUPLICATE_FIELD_NAMES);
+        this.extraChars = options.features.contains(JSONFeature.EXTRA_CHARS);
+    }
+
+    /**
+     * @return number of arrays and objects entered and not exited yet (0 at the top level)
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return name of the field found by the last {@link #nextField()} call
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    private Container current() {
+        return containers.get(depth - 1);
+    }
+
+    private void push(boolean object) {
+        if (options.maxNestingLevel >= 0 && depth + 1 > options.maxNestingLevel) {
+            throw lexer.tokenError("Maximum nesting level " + options.maxNestingLevel + " reached");
+        }
+        Container container;
+        if (depth < containers.size()) {
+            container = containers.get(depth);
+        } else {
+            container = new Container();
+            containers.add(container);
+        }
+        container.object = object;
+        container.prev = PrevState.START;
+        container.keys.clear();
+        depth++;
+        state = ValueState.NONE;
+    }
+
+    private void pop() {
+        lexer.next();
+        depth--;
+        fieldName = null;
+    }
+
+    private void peekValue() {
+        int ch = lexer.peek();
+        if (ch < 0 || ch == ',' || ch == ':' || ch == '}' || ch == ']') {
+            lexer.next();
+            throw lexer.tokenError("Unexpected token " + lexer.tokenType);
+        }
+        valueStart = ch;
+        state = ValueState.PEEKED;
+    }
+
+    private void finishValue() {
+        if (state == ValueState.PEEKED) {
+            lexer.skip(0, depth, options.maxNestingLevel);
+        }
+        state = ValueState.NONE;
+    }
+
+    private void requireValue() {
+        if (state == ValueState.NONE) {
+            throw new IllegalStateException("No current value");
+        }
+    }
+
+    /**
+     * Moves to the next field of the current object, skipping the current value if it was not read.
+     * The field value then can be read by getters, {@link #beginObject()} or {@link #beginArray()}.
+     *
+     * @return false if the end of object is reached; then the current object is exited
+     */
+    public boolean nextField() {
+        return nextField(null);
+    }
+
+    /**
+     * @param names if not null, only keys from these names are created, for other keys field name is null
+     */
+    private boolean nextField(FieldNames names) {
+        if (depth == 0 || !current().object) {
+            throw new IllegalStateException("Not inside an object");
+        }
+        finishValue();
+        Container container = current();
+        while (true) {
+            int ch = lexer.peek();
+            if (ch == ',') {
+                if (container.prev != PrevState.VALUE) {
+                    throw lexer.tokenError("Extra comma in object");
+                }
+                lexer.next();
+                container.prev = PrevState.COMMA;
+            } else if (ch == '}') {
+                if (container.prev == PrevState.COMMA && !allowTrailingComma) {
+                    throw lexer.tokenError("Trailing comma in object");
+                }
+                pop();
+                return false;
+            } else {
+                if (container.prev == PrevState.VALUE) {
+                    lexer.next();
+                    throw lexer.tokenError("Missing comma in object");
+                }
+                if (names == null) {
+                    lexer.nextKey();
+                } else {
+                    lexer.nextKey(names);
+                }
+                JSONTokenType type = lexer.tokenType;
+                if (type == JSONTokenType.STRING || type == JSONTokenType.IDENT ||
+                    type == JSONTokenType.TRUE || type == JSONTokenType.FALSE || type == JSONTokenType.NULL ||
+                    type == JSONTokenType.IDENT_FLOAT) {
+                    if (!unquotedFields && type != JSONTokenType.STRING) {
+                        throw lexer.tokenError("Unquoted field names are not allowed");
+                    }
+                } else {
+                    throw lexer.tokenError("Expected field name but found " + type);
+                }
+                String key = lexer.tokenText;
+                if (!duplicateKeys && key != null && !container.keys.add(key)) {
+                    throw lexer.tokenError("Duplicate key '" + key + "' in object");
+                }
+                lexer.next();
+                if (lexer.tokenType != JSONTokenType.COLON) {
+                    throw lexer.tokenError("Expected colon after key, but " + lexer.tokenType + " found");
+                }
+                peekValue();
+                container.prev = PrevState.VALUE;
+                fieldName = key;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves to the next value of the current array (or to the top-level value), skipping the current value if it was not read.
+     * The value then can be read by getters, {@link #beginObject()} or {@link #beginArray()}.
+     *
+     * @return false if the end of array is reached (then the current array is exited) or
+     * if the top-level value was already read
+     */
+    public boolean nextValue() {
+        finishValue();
+        if (depth == 0) {
+            if (rootRead) {
+                if (lexer.peek() >= 0) {
+                    if (!extraChars)
+                        throw lexer.tokenError("Extra character at the end");
+                    // Invalid token after the value is reported like by JSONParser:
+                    lexer.next();
+                }
+                return false;
+            }
+            rootRead = true;
+            peekValue();
+            return true;
+        }
+        Container container = current();
+        if (container.object) {
+            throw new IllegalStateException("Not inside an array");
+        }
+        while (true) {
+            int ch = lexer.peek();
+            if (ch == ',') {
+                if (container.prev != PrevState.VALUE) {
+                    if (!allowMissingValues) {
+                        throw lexer.tokenError("Extra comma in array");
+                    }
+                    lexer.next();
+                    container.prev = PrevState.COMMA;
+                    state = ValueState.MISSING;
+                    return true;
+                }
+                lexer.next();
+                container.prev = PrevState.COMMA;
+            } else if (ch == ']') {
+                if (container.prev == PrevState.COMMA && !allowTrailingComma) {
+                    if (!allowMissingValues) {
+                        throw lexer.tokenError("Trailing comma in array");
+                    }
+                    container.prev = PrevState.VALUE;
+                    state = ValueState.MISSING;
+                    return true;
+                }
+                pop();
+                return false;
+            } else {
+                if (container.prev == PrevState.VALUE) {
+                    lexer.next();
+                    throw lexer.tokenError("Missing comma in array");
+                }
+                peekValue();
+                container.prev = PrevState.VALUE;
+                return true;
+            }
+        }
+    }
+
+    private void lexValue() {
+        if (state == ValueState.PEEKED) {
+            lexer.next();
+            state = ValueState.LEXED;
+            JSONTokenType type = lexer.tokenType;
+            if (type == JSONTokenType.IDENT_FLOAT) {
+                if (!specialNumbers) {
+                    throw lexer.tokenError("Use of non-numeric floating point numbers not allowed");
+                }
+            } else if (type == JSONTokenType.IDENT) {
+                throw lexer.tokenError("Unexpected token " + type);
+            }
+        }
+    }
+
+    /**
+     * @return type of the current value: {@link JSONTokenType#LCURLY} for objects, {@link JSONTokenType#LSQUARE} for arrays,
+     * otherwise type of the primitive value
+     */
+    public JSONTokenType getValueType() {
+        requireValue();
+        if (state == ValueState.MISSING)
+            return JSONTokenType.NULL;
+        if (state == ValueState.PEEKED) {
+            if (valueStart == '{')
+                return JSONTokenType.LCURLY;
+            if (valueStart == '[')
+                return JSONTokenType.LSQUARE;
+            if (valueStart == '"')
+                return JSONTokenType.STRING;
+            lexValue();
+        }
+        return lexer.tokenType;
+    }
+
+    private JSONParseException notObject() {
+        return lexer.tokenError("Object must start with '{', but " + getValueType() + " found");
+    }
+
+    /**
+     * Enters the current value which must be an object
+     */
+    public void beginObject() {
+        requireValue();
+        lexValue();
+        if (state == ValueState.MISSING || lexer.tokenType != JSONTokenType.LCURLY) {
+            throw notObject();
+        }
+        push(true);
+    }
+
+    /**
+     * Enters the current value which must be an array
+     */
+    public void beginArray() {
+        requireValue();
+        lexValue();
+        if (state == ValueState.MISSING || lexer.tokenType != JSONTokenType.LSQUARE) {
+            throw lexer.tokenError("Array must start with '[', but " + getValueType() + " found");
+        }
+        push(false);
+    }
+
+    private Object primitive(String expected, JSONTokenType... types) {
+        requireValue();
+        lexValue();
+        JSONTokenType type = getValueType();
+        for (JSONTokenType allowed : types) {
+            if (type == allowed) {
+                Object value;
+                if (state == ValueState.MISSING) {
+                    value = options.valueFactory.nullValue();
+                } else if (type == JSONTokenType.STRING) {
+                    value = lexer.tokenText;
+                } else {
+                    value = lexer.tokenValue;
+                }
+                state = ValueState.NONE;
+                return value;
+            }
+        }
+        throw lexer.tokenError("Expected " + expected + " but found " + type);
+    }
+
+    /**
+     * Reads the current value which must be a string or null
+     */
+    public String getString() {
+        Object value = primitive("string", JSONTokenType.STRING, JSONTokenType.NULL);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Reads the current value which must be a boolean
+     */
+    public boolean getBoolean() {
+        return JSONConverter.convert(Boolean.class, primitive("boolean", JSONTokenType.TRUE, JSONTokenType.FALSE));
+    }
+
+    private Object number() {
+        return primitive("number", JSONTokenType.INT, JSONTokenType.FLOAT, JSONTokenType.IDENT_FLOAT);
+    }
+
+    /**
+     * Reads the current value which must be a number
+     */
+    public int getInt() {
+        return JSONConverter.convert(Integer.class, number());
+    }
+
+    /**
+     * Reads the current value which must be a number
+     */
+    public long getLong() {
+        return JSONConverter.convert(Long.class, number());
+    }
+
+    /**
+     * Reads the current value which must be a number
+     */
+    public double getDouble() {
+        return JSONConverter.convert(Double.class, number());
+    }
+
+    /**
+     * Reads the current value of any type; objects and arrays are read entirely
+     */
+    @SuppressWarnings("unchecked")
+    public Object getValue() {
+        JSONTokenType type = getValueType();
+        if (type != JSONTokenType.LCURLY && type != JSONTokenType.LSQUARE)
+            return primitive("value", type);
+        // Maps and lists of the objects and arrays being read (the innermost is the last),
+        // and keys of their values in the enclosing objects (null for arrays):
+        List<Object> values = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        String key = null;
+        while (true) {
+            // Read or enter the current value:
+            type = getValueType();
+            if (type == JSONTokenType.LCURLY) {
+                beginObject();
+                values.add(options.valueFactory.objectValue());
+                keys.add(key);
+            } else if (type == JSONTokenType.LSQUARE) {
+                beginArray();
+                values.add(options.valueFactory.arrayValue());
+                keys.add(key);
+            } else {
+                addValue(values.get(values.size() - 1), key, primitive("value", type));
+            }
+            // Move to the next value, completing the objects and arrays which end:
+            while (true) {
+                int last = values.size() - 1;
+                boolean object = current().object;
+                if (object ? nextField() : nextValue()) {
+                    key = object ? fieldName : null;
+                    break;
+                }
+                Object value;
+                if (object) {
+                    value = new JSONObject(options.valueFactory.completeObject((Map<String, Object>) values.remove(last)));
+                } else {
+                    value = new JSONArray(options.valueFactory.completeArray((List<Object>) values.remove(last)));
+                }
+                String valueKey = keys.remove(last);
+                if (last == 0)
+                    return value;
+                addValue(values.get(last - 1), valueKey, value);
+            }
+        }
+    }
+
+    /**
+     * Adds value to the map or list of the current object or array
+     */
+    @SuppressWarnings("unchecked")
+    private void addValue(Object container, String key, Object value) {
+        if (current().object) {
+            ((Map<String, Object>) container).put(key, value);
+        } else {
+            ((List<Object>) container).add(value);
+        }
+    }
+
+    /**
+     * Enters the current value which must be an array and returns lazy iterator over its values.
+     * Values are read entirely by {@link #getValue()}; the array is exited after the last value.
+     * If the array is the top-level value, the end of input is checked after the last value.
+     */
+    public Iterator<Object> iterateArray() {
+        beginArray();
+        int arrayDepth = depth;
+        return new Iterator<Object>() {
+
+            private boolean fetched = false;
+            private boolean available = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!fetched) {
+                    available = depth == arrayDepth && nextValue();
+                    if (!available && depth == 0) {
+                        nextValue();
+                    }
+                    fetched = true;
+                }
+                return available;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                fetched = false;
+                return getValue();
+            }
+        };
+    }
+
+    private static final Object DROPPED = new Object();
+
+    private Object project(JSONProjection.Node node) {
+        if (node.isLeaf())
+            return getValue();
+        JSONTokenType type = getValueType();
+        if (type == JSONTokenType.LCURLY) {
+            beginObject();
+            Map<String, Object> object = options.valueFactory.objectValue();
+            FieldNames names = node.any == null ? node.names : null;
+            while (nextField(names)) {
+                String key = fieldName;
+                if (key == null)
+                    continue;
+                Node child = node.field(key);
+                if (child == null)
+                    continue;
+                Object value = project(child);
+                if (value != DROPPED) {
+                    object.put(key, value);
+                }
+            }
+            return new JSONObject(options.valueFactory.completeObject(object));
+        } else if (type == JSONTokenType.LSQUARE) {
+            beginArray();
+            List<Object> array = options.valueFactory.arrayValue();
+            int index = 0;
+            while (nextValue()) {
+                Node child = node.element(index++);
+                if (child == null)
+                    continue;
+                Object value = project(child);
+                if (value != DROPPED) {
+                    array.add(value);
+                }
+            }
+            return new JSONArray(options.valueFactory.completeArray(array));
+        } else {
+            skipValue();
+            return DROPPED;
+        }
+    }
+
+    /**
+     * Reads the current value keeping only the paths selected by the projection; other values are skipped.
+     * Primitive value is returned as is.
+     */
+    public Object getValue(JSONProjection projection) {
+        JSONTokenType type = getValueType();
+        if (type != JSONTokenType.LCURLY && type != JSONTokenType.LSQUARE)
+            return getValue();
+        return project(projection.root);
+    }
+
+    /**
+     * Reads the current value which must be an object keeping only the paths selected by the projection
+     */
+    public JSONObject getObject(JSONProjection projection) {
+        if (getValueType() != JSONTokenType.LCURLY) {
+            // Error location is the start of the value token
+            lexValue();
+            throw notObject();
+        }
+        return (JSONObject) project(projection.root);
+    }
+
+    /**
+     * @return start index of the current value if it is not read yet, otherwise -1
+     */
+    long valueIndex() {
+        return state == ValueState.PEEKED ? lexer.tokenIndex : -1;
+    }
+
+    /**
+     * @return true if the current value is a missing array value ({@link JSONFeature#ARRAY_MISSING_VALUES})
+     */
+    boolean isMissingValue() {
+        return state == ValueState.MISSING;
+    }
+
+    /**
+     * @return index of the next char to read
+     */
+    long position() {
+        return lexer.position();
+    }
+
+    /**
+     * Skips the current value without reading it
+     */
+    public void skipValue() {
+        requireValue();
+        finishValue();
+    }
+
+    /**
+     * Skips the rest of the current object or array and exits it
+     */
+    public void skipChildren() {
+        if (depth == 0) {
+            throw new IllegalStateException("Not inside an object or array");
+        }
+        lexer.skip(1, depth - 1, options.maxNestingLevel);
+        state = ValueState.NONE;
+        depth--;
+        fieldName = null;
+    }
+}
@@ -0,0 +1,140 @@
+package smalljson.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Stage 1 of {@link JSONIndexedParser}: finds offsets of structural characters in UTF-8 input.
+ * <p>
+ * Input is classified 8 bytes at a time using bit tricks on {@code long} words (SWAR).
+ * Bytes are grouped into blocks of 64, so every class of bytes in the block becomes a 64-bit mask.
+ * Index contains offsets of {@code {}[]:,} outside of strings, of opening quotes and of the first bytes
+ * of other values (numbers, literals or garbage).
+ */
+final class StructuralIndex {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH = 0x8080808080808080L;
+
+    /**
+     * Offsets of structural bytes; entry {@code count} is the input length (end of input marker)
+     */
+    final int[] offsets;
+    final int count;
+
+    private StructuralIndex(int[] offsets, int count) {
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    /**
+     * @return high bit set in every byte of {@code word} equal to zero
+     */
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW7) + LOW7) | word | LOW7);
+    }
+
+    private static long equalBytes(long word, int ch) {
+        return zeroBytes(word ^ (ch * ONES));
+    }
+
+    /**
+     * @return high bit set in every byte of {@code word} which is less or equal to space (as in {@link JSONLexer})
+     */
+    private static long spaceBytes(long word) {
+        return ~(((word & LOW7) + (0x80 - 0x21) * ONES) | word) & HIGH;
+    }
+
+    /**
+     * Gathers high bits of every byte into the lowest 8 bits
+     */
+    private static long moveMask(long bytes) {
+        return ((bytes >>> 7) * 0x0102040810204080L) >>> 56;
+    }
+
+    /**
+     * @return bit i is set if odd number of bits in {@code mask} are set in positions from 0 to i
+     */
+    private static long prefixXor(long mask) {
+        mask ^= mask << 1;
+        mask ^= mask << 2;
+        mask ^= mask << 4;
+        mask ^= mask << 8;
+        mask ^= mask << 16;
+        mask ^= mask << 32;
+        return mask;
+    }
+
+    /**
+     * @return null if input contains an unterminated string
+     */
+    static StructuralIndex build(byte[] json, int length) {
+        ByteBuffer words = ByteBuffer.wrap(json).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer tail = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        int[] offsets = new int[Math.max(length / 4, 64) + 1];
+        int count = 0;
+        boolean prevEscaped = false;
+        boolean prevInString = false;
+        boolean prevScalar = false;
+        for (int block = 0; block < length; block += 64) {
+            ByteBuffer data = words;
+            int start = block;
+            if (length - block < 64) {
+                // Last block is padded with spaces
+                Arrays.fill(tail.array(), (byte) ' ');
+                System.arraycopy(json, block, tail.array(), 0, length - block);
+                data = tail;
+                start = 0;
+            }
+            long quotes = 0;
+            long backslashes = 0;
+            long operators = 0;
+            long spaces = 0;
+            for (int i = 0; i < 8; i++) {
+                long word = data.getLong(start + i * 8);
+                int shift = i * 8;
+                quotes |= moveMask(equalBytes(word, '"')) << shift;
+                backslashes |= moveMask(equalBytes(word, '\\')) << shift;
+                // '[' and ']' differ from '{' and '}' only in 0x20 bit:
+                long brackets = word | 0x20 * ONES;
+                operators |= moveMask(equalBytes(brackets, '{') | equalBytes(brackets, '}') | equalBytes(word, ':') | equalBytes(word, ',')) << shift;
+                spaces |= moveMask(spaceBytes(word)) << shift;
+            }
+
+            long escaped = prevEscaped ? 1 : 0;
+            prevEscaped = false;
+            // Backslashes are rare, so escapes are resolved one by one:
+            for (long rest = backslashes & ~escaped; rest != 0; rest &= rest - 1) {
+                int bit = Long.numberOfTrailingZeros(rest);
+                if ((escaped & (1L << bit)) != 0)
+                    continue;
+                if (bit == 63) {
+                    prevEscaped = true;
+                } else {
+                    escaped |= 1L << (bit + 1);
+                }
+            }
+            quotes &= ~escaped;
+            // Opening quote and string contents, but not closing quote:
+            long inString = prefixXor(quotes) ^ (prevInString ? -1L : 0L);
+            prevInString = inString < 0;
+            long scalars = ~(operators | spaces | quotes | inString);
+            long scalarStarts = scalars & ~((scalars << 1) | (prevScalar ? 1 : 0));
+            prevScalar = scalars < 0;
+            long structurals = (operators & ~inString) | (quotes & inString) | scalarStarts;
+
+            if (count + 64 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(offsets.length * 2, count + 65));
+            }
+            for (; structurals != 0; structurals &= structurals - 1) {
+                offsets[count++] = block + Long.numberOfTrailingZeros(structurals);
+            }
+        }
+        if (prevInString)
+            return null;
+        offsets[count] = length;
+        return new StructuralIndex(offsets, count);
+    }
+}
@@ -0,0 +1,59 @@
+package smalljson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link JSONFactory#parseIndexed} with the lexer-based parsing on small and large documents.
+ * Not a test: run manually with a large heap, e.g. {@code -Xmx4g}.
+ */
+public final class IndexedBenchmark {
+
+    private static String document(int items) {
+        StringBuilder buf = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append("{\"id\": ").append(i)
+                .append(", \"name\": \"item ").append(i).append(" \\\"quoted\\\"\"")
+                .append(", \"city\": \"K\u00f8benhavn\"")
+                .append(", \"price\": ").append(i * 0.25 + 0.01)
+                .append(", \"tags\": [\"a\", \"b\", \"c\"], \"active\": ").append(i % 2 == 0)
+                .append(", \"parent\": null}");
+        }
+        buf.append("], \"count\": ").append(items).append("}");
+        return buf.toString();
+    }
+
+    private static void measure(String name, int size, int iterations, Supplier<Object> parse) {
+        for (int i = 0; i < iterations; i++) {
+            parse.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parse.get();
+        }
+        long time = System.nanoTime() - start;
+        double perOp = (double) time / iterations;
+        System.out.printf("%-24s %12.0f ns/op %8.1f MB/s%n", name, perOp, size / perOp * 1000);
+    }
+
+    private static void run(String title, String json, int iterations) {
+        JSONFactory factory = JSONFactory.JSON;
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        System.out.println(title + ": " + bytes.length + " bytes");
+        measure("lexer String", bytes.length, iterations, () -> factory.parse(json));
+        measure("indexed String", bytes.length, iterations, () -> factory.parseIndexed(json));
+        measure("lexer byte[]", bytes.length, iterations, () -> factory.parse(ByteBuffer.wrap(bytes)));
+        measure("indexed byte[]", bytes.length, iterations, () -> factory.parseIndexed(bytes));
+    }
+
+    public static void main(String[] args) {
+        for (int round = 0; round < 5; round++) {
+            run("Small", document(5), 200000);
+            run("Large", document(100000), 20);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package smalljson;
+
+import java.util.EnumSet;
+import java.util.function.Supplier;
+
+/**
+ * Measures lexer fast paths on standard JSON: {@link JSONFeature#CASE_INSENSITIVE} disables
+ * the in-place matching of true/false/null, and the other extension features show the cost
+ * of feature checks on input which does not use them.
+ * Not a test: run manually.
+ */
+public final class LexerBenchmark {
+
+    private static String document(int items) {
+        StringBuilder buf = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append("{\"id\": ").append(i)
+                .append(", \"name\": \"item ").append(i).append(" \\\"quoted\\\"\"")
+                .append(", \"price\": ").append(i * 0.25 + 0.01)
+                .append(", \"tags\": [\"a\", \"b\"], \"active\": ").append(i % 2 == 0)
+                .append(", \"parent\": null}");
+        }
+        buf.append("]}");
+        return buf.toString();
+    }
+
+    private static String literals(int items) {
+        StringBuilder buf = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(i % 3 == 0 ? "true" : i % 3 == 1 ? "false" : "null");
+        }
+        buf.append("]");
+        return buf.toString();
+    }
+
+    private static void measure(String name, int size, int iterations, Supplier<Object> parse) {
+        for (int i = 0; i < iterations; i++) {
+            parse.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parse.get();
+        }
+        long time = System.nanoTime() - start;
+        double perOp = (double) time / iterations;
+        System.out.printf("%-24s %12.0f ns/op %8.1f MB/s%n", name, perOp, size / perOp * 1000);
+    }
+
+    private static void run(String title, String json, int iterations) {
+        EnumSet<JSONFeature> extensions = EnumSet.allOf(JSONFeature.class);
+        extensions.remove(JSONFeature.CASE_INSENSITIVE);
+        JSONFactory standard = JSONFactory.JSON;
+        JSONFactory extended = JSONParseOptions.builder().addFeatures(extensions).build();
+        JSONFactory generalLiterals = JSONParseOptions.builder().feature(JSONFeature.CASE_INSENSITIVE).build();
+        System.out.println(title + ": " + json.length() + " chars");
+        measure("standard", json.length(), iterations, () -> standard.parse(json));
+        measure("extensions enabled", json.length(), iterations, () -> extended.parse(json));
+        measure("case insensitive", json.length(), iterations, () -> generalLiterals.parse(json));
+    }
+
+    public static void main(String[] args) {
+        for (int round = 0; round < 5; round++) {
+            run("Typical", document(1000), 2000);
+            run("Literals", literals(20000), 2000);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package smalljson;
+
+import smalljson.parser.FastReader;
+
+/**
+ * Reader with a tiny window, so that every token crosses window boundaries
+ * and lexer fast paths are not taken
+ */
+public final class ChunkedReader extends FastReader {
+
+    private final String str;
+    private int offset = 0;
+
+    public ChunkedReader(String str, int chunk) {
+        this.str = str;
+        this.buf = new char[chunk];
+    }
+
+    @Override
+    protected boolean fill() {
+        int count = Math.min(str.length() - offset, buf.length);
+        if (count <= 0)
+            return false;
+        str.getChars(offset, offset + count, buf, 0);
+        offset += count;
+        pos = 0;
+        len = count;
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class CompactListTests {
+
+    private static Object randomElement(Random random) {
+        switch (random.nextInt(12)) {
+        case 0:
+            return random.nextLong();
+        case 1:
+            return (long) random.nextInt(10);
+        case 2:
+            return random.nextDouble();
+        case 3:
+            return "s" + random.nextInt(10);
+        case 4:
+            return null;
+        default:
+            return random.nextInt(100);
+        }
+    }
+
+    @Test
+    public void testListContract() {
+        Random random = new Random(1);
+        for (int round = 0; round < 300; round++) {
+            List<Object> expected = new ArrayList<>();
+            JSONCompactList actual = new JSONCompactList();
+            // Mostly one kind of elements, so that primitive storage is used for long:
+            int kinds = random.nextInt(3);
+            for (int i = 0; i < 100; i++) {
+                Object element = kinds == 0 ? random.nextInt() : kinds == 1 ? Long.MAX_VALUE - i : randomElement(random);
+                if (random.nextInt(30) == 0) {
+                    element = randomElement(random);
+                }
+                int op = random.nextInt(10);
+                if (op < 5 || expected.isEmpty()) {
+                    assertEquals(expected.add(element), actual.add(element));
+                } else if (op < 6) {
+                    int index = random.nextInt(expected.size() + 1);
+                    expected.add(index, element);
+                    actual.add(index, element);
+                } else if (op < 8) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.set(index, element), actual.set(index, element));
+                } else if (op < 9) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.remove(index), actual.remove(index));
+                } else {
+                    actual.trimToSize();
+                }
+                assertEquals(expected.size(), actual.size());
+            }
+            assertEquals(expected, actual);
+            assertEquals(actual, expected);
+            assertEquals(expected.hashCode(), actual.hashCode());
+            assertEquals(expected.toString(), actual.toString());
+            for (int i = 0; i < expected.size(); i++) {
+                Object element = actual.get(i);
+                assertSame(expected.get(i) == null ? null : expected.get(i).getClass(), element == null ? null : element.getClass());
+            }
+        }
+        JSONCompactList list = new JSONCompactList();
+        list.add(1);
+        Iterator<Object> elements = list.iterator();
+        elements.next();
+        list.add(2);
+        assertThrows(ConcurrentModificationException.class, elements::next);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.add(3, 3));
+        list.clear();
+        assertTrue(list.isEmpty());
+        list.add("x");
+        assertEquals(Collections.singletonList("x"), list);
+    }
+
+    @Test
+    public void testBulkAccess() {
+        JSONFactory factory = optBuilder().compactArrays().build();
+        JSONArray ints = factory.parseArray("[1, -2, 3]");
+        JSONArray longs = factory.parseArray("[1, 12345678901, -3]");
+        JSONArray doubles = factory.parseArray("[1.5, -2.5, 1e300]");
+        JSONArray mixed = factory.parseArray("[1, 2.5, \"3\"]");
+        for (JSONArray array : Arrays.asList(ints, longs, doubles, mixed, list(1, 12345678901L, 2.5, "3"))) {
+            JSONArray boxed = new JSONArray(new ArrayList<>(array.toList()));
+            assertArrayEquals(boxed.toIntArray(), array.toIntArray());
+            assertArrayEquals(boxed.toLongArray(), array.toLongArray());
+            assertArrayEquals(boxed.toDoubleArray(), array.toDoubleArray());
+        }
+        assertArrayEquals(new int[] {1, -2, 3}, ints.toIntArray());
+        assertArrayEquals(new long[] {1, 12345678901L, -3}, longs.toLongArray());
+        assertArrayEquals(new double[] {1.5, -2.5, 1e300}, doubles.toDoubleArray());
+        assertArrayEquals(new int[] {1, 2, 3}, mixed.toIntArray());
+        assertArrayEquals(new double[0], factory.parseArray("[]").toDoubleArray());
+        assertThrows(JSONRuntimeException.class, () -> factory.parseArray("[1, null]").toIntArray());
+    }
+
+    @Test
+    public void testParseAndWrite() throws IOException {
+        JSONFactory factory = optBuilder().compactArrays().build();
+        assertInstanceOf(JSONCompactList.class, factory.parseArray("[1, 2]").toList());
+        // Objects are not affected:
+        assertInstanceOf(LinkedHashMap.class, factory.parseArray("[{}]").get(0, JSONObject.class).toMap());
+        JSONArray both = optBuilder().compactValues().build().parseArray("[{\"a\": [1]}]");
+        assertInstanceOf(JSONCompactMap.class, both.get(0, JSONObject.class).toMap());
+        assertInstanceOf(JSONCompactList.class, both.get(0, JSONObject.class).get("a", JSONArray.class).toList());
+        assertEquals(list(1, 12345678901L, Long.MIN_VALUE), factory.parse("[1, 12345678901, -9223372036854775808]"));
+        assertEquals(list(1, 2.0, "x", null, list(1.5)), factory.parse("[1, 2.0, \"x\", null, [1.5]]"));
+
+        JSONFactory defaultFactory = SiteUtil.siteOptions();
+        JSONFactory compactFactory = SiteUtil.siteOptions().getOptions().copy().compactArrays().build();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            if (failing)
+                return;
+            String text = SiteUtil.readString(is);
+            Object expected = defaultFactory.parse(text);
+            Object actual = compactFactory.parse(text);
+            assertEquals(expected, actual);
+            assertEquals(expected, compactFactory.parseIndexed(text));
+            assertEquals(JSONWriter.toString(expected), JSONWriter.toString(actual));
+            assertEquals(JSONWriter.toString(JSONWriteOptions.COMPACT, expected), JSONWriter.toString(JSONWriteOptions.COMPACT, actual));
+        });
+
+        String json = "[[1, 2, 3], [12345678901, -1], [0.5, 1e300, -0.0], [" + "1234567890, ".repeat(20) + "1]]";
+        Object expected = JSONFactory.JSON.parse(json);
+        Object actual = factory.parse(json);
+        assertEquals(JSONWriter.toString(expected), JSONWriter.toString(actual));
+        assertEquals(JSONWriter.toString(JSONWriteOptions.COMPACT, expected), JSONWriter.toString(JSONWriteOptions.COMPACT, actual));
+        assertEquals(JSONWriter.toString(expected), JSONWriter.toString(((JSONArray) actual).toList()));
+    }
+}
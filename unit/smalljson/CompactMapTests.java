@@ -0,0 +1,100 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class CompactMapTests {
+
+    private static void assertSameMap(Map<String, Object> expected, JSONCompactMap actual) {
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(actual.values()));
+    }
+
+    @Test
+    public void testMapContract() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            Map<String, Object> expected = new LinkedHashMap<>();
+            JSONCompactMap actual = new JSONCompactMap();
+            int keys = 1 + random.nextInt(40);
+            for (int i = 0; i < 300; i++) {
+                String key = random.nextInt(20) == 0 ? null : "k" + random.nextInt(keys);
+                int op = random.nextInt(10);
+                if (op < 6) {
+                    assertEquals(expected.put(key, i), actual.put(key, i));
+                } else if (op < 8) {
+                    assertEquals(expected.remove(key), actual.remove(key));
+                } else if (op < 9) {
+                    assertEquals(expected.containsKey(key), actual.containsKey(key));
+                    assertEquals(expected.get(key), actual.get(key));
+                } else {
+                    actual.trimToSize();
+                }
+                assertEquals(expected.size(), actual.size());
+            }
+            assertSameMap(expected, actual);
+
+            Iterator<Map.Entry<String, Object>> expectedEntries = expected.entrySet().iterator();
+            Iterator<Map.Entry<String, Object>> actualEntries = actual.entrySet().iterator();
+            while (expectedEntries.hasNext()) {
+                Map.Entry<String, Object> expectedEntry = expectedEntries.next();
+                Map.Entry<String, Object> actualEntry = actualEntries.next();
+                assertEquals(expectedEntry, actualEntry);
+                if (random.nextBoolean()) {
+                    expectedEntries.remove();
+                    actualEntries.remove();
+                } else {
+                    assertEquals(expectedEntry.setValue("x"), actualEntry.setValue("x"));
+                }
+            }
+            assertFalse(actualEntries.hasNext());
+            assertSameMap(expected, actual);
+            for (String key : expected.keySet()) {
+                assertEquals(expected.get(key), actual.get(key));
+            }
+        }
+        JSONCompactMap map = new JSONCompactMap(2);
+        map.put("a", 1);
+        Iterator<String> keys = map.keySet().iterator();
+        assertThrows(IllegalStateException.class, keys::remove);
+        keys.next();
+        map.put("b", 2);
+        assertThrows(ConcurrentModificationException.class, keys::next);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey("a"));
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        JSONFactory factory = optBuilder().compactObjects().build();
+        String json = "{\"a\": 1, \"b\": {\"c\": [{}, {\"d\": null}]}, \"e\": \"x\"}";
+        JSONObject object = factory.parseObject(json);
+        assertInstanceOf(JSONCompactMap.class, object.toMap());
+        assertInstanceOf(JSONCompactMap.class, object.get("b", JSONObject.class).toMap());
+        // Arrays are not affected:
+        assertInstanceOf(ArrayList.class, object.get("b", JSONObject.class).get("c", JSONArray.class).toList());
+        assertEquals(JSONFactory.JSON.parse(json), object);
+        assertEquals(map("a", 1, "b", 2), optBuilder(JSONFeature.DUPLICATE_FIELD_NAMES).compactObjects().build().parse("{\"a\": 1, \"b\": 3, \"b\": 2}"));
+
+        JSONFactory defaultFactory = SiteUtil.siteOptions();
+        JSONFactory compactFactory = SiteUtil.siteOptions().getOptions().copy().compactObjects().build();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            if (failing)
+                return;
+            String text = SiteUtil.readString(is);
+            assertEquals(defaultFactory.parse(text), compactFactory.parse(text));
+            assertEquals(defaultFactory.parse(text), compactFactory.parseIndexed(text));
+            assertEquals(defaultFactory.parse(text), compactFactory.parseLazy(text));
+        });
+    }
+}
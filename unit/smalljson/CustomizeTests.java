@@ -3,9 +3,11 @@ package smalljson;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
+import java.util.Iterator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static smalljson.TestUtil.*;
 
 public class CustomizeTests {
@@ -22,6 +24,56 @@ public class CustomizeTests {
         assertEquals(BigInteger.ONE, options.parse("1"));
     }
 
+    @Test
+    public void testPrimitiveValueFactory() {
+        JSONValueFactory valueFactory = new JSONValueFactory() {
+            @Override
+            public Object longValue(long value) {
+                return BigInteger.valueOf(value);
+            }
+
+            @Override
+            public Object doubleValue(double value) {
+                return (float) value;
+            }
+        };
+        JSONFactory options = optBuilder().valueFactory(valueFactory).build();
+        assertEquals(list(BigInteger.ONE, BigInteger.valueOf(-2), 1.5f), options.parse("[1, -2, 1.5]"));
+        assertEquals(new BigInteger("99999999999999999999"), options.parse("99999999999999999999"));
+    }
+
+    @Test
+    public void testKeyCache() {
+        JSONStringCache keyCache = new JSONStringCache(16);
+        JSONFactory factory = optBuilder(JSONFeature.UNQUOTED_FIELD_NAMES).keyCache(keyCache).build();
+        String json = "[{\"key\": 1, \"k\\u0065y2\": 2, key3: 3}, {\"key\": 4, \"key2\": 5, \"key3\": 6}]";
+        JSONArray array = factory.parseArray(json);
+        assertEquals(factory().parse(json.replace("key3:", "\"key3\":")), array);
+        JSONObject first = array.get(0, JSONObject.class);
+        JSONObject second = array.get(1, JSONObject.class);
+        Iterator<String> keys = second.toMap().keySet().iterator();
+        for (String key : first.toMap().keySet()) {
+            assertSame(key, keys.next());
+        }
+        JSONObject third = factory.parseObject(new ChunkedReader("{\"key\": \"key\"}", 2));
+        assertSame(first.toMap().keySet().iterator().next(), third.toMap().keySet().iterator().next());
+    }
+
+    @Test
+    public void testValueCache() {
+        JSONStringCache valueCache = new JSONStringCache(16, 3);
+        JSONFactory factory = optBuilder().valueCache(valueCache).build();
+        String json = "[\"USD\", \"EUR\", \"USD\", \"U\\u0053D\", \"long value\"]";
+        JSONArray array = factory.parseArray(json);
+        assertEquals(factory().parse(json), array);
+        assertSame(array.get(0), array.get(2));
+        assertSame(array.get(0), array.get(3));
+        assertEquals(2, valueCache.getHits());
+        assertEquals(2, valueCache.getMisses());
+        valueCache.clear();
+        assertEquals(0, valueCache.getHits());
+    }
+
     private static final class CustomNull implements JSONWriter.RawValue, JSONConverter.CastableValue {
 
         @Override
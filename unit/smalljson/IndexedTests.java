@@ -0,0 +1,127 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class IndexedTests {
+
+    private static void assertSameAsLexer(JSONFactory factory, byte[] json, String message) {
+        assertSameResult(() -> factory.parse(ByteBuffer.wrap(json)), () -> factory.parseIndexed(json), message);
+    }
+
+    private static void assertSameAsLexer(JSONFactory factory, String json) {
+        assertSameResult(() -> factory.parse(json), () -> factory.parseIndexed(json), json);
+        assertSameAsLexer(factory, json.getBytes(StandardCharsets.UTF_8), json);
+    }
+
+    @Test
+    public void testValues() {
+        String[] examples = {
+            "1", "-0", "0", "-0.0", "0.0", "12345678901234567890", "-9223372036854775808", "9223372036854775808",
+            "1.5e300", "1e-400", "123456789012345678901234.5e-3", "3.14159", "1E+2", "true", "false", "null",
+            "\"\"", "\"abc\"", "\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u0041\\u00e9\"", "\"\u00e9\u4e2d\ud83d\ude00\"",
+            "[]", "{}", " [ 1 , 2 ] ", "{\"a\": {\"b\": [1, {\"c\": \"\\\\\"}]}, \"d\": [true, false, null]}"
+        };
+        JSONFactory factory = factory();
+        for (String json : examples) {
+            assertSameAsLexer(factory, json);
+        }
+        assertEquals(map("a", list(1, 2.5, "x")), factory.parseIndexed("{\"a\": [1, 2.5, \"x\"]}"));
+    }
+
+    @Test
+    public void testBlockBoundaries() {
+        // Strings with backslash runs and quotes crossing 64-byte blocks:
+        for (int shift = 0; shift < 70; shift++) {
+            StringBuilder buf = new StringBuilder("[");
+            for (int i = 0; i < shift; i++) {
+                buf.append(' ');
+            }
+            buf.append("\"a\\\\\\\\\\\"b\\\\\", 12345, \"\u00e9\\\"\", true]");
+            assertSameAsLexer(factory(), buf.toString());
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        String[] examples = {
+            "", " ", "[1 2]", "[1, [2, @]]", "{\"a\": 1, \"a\": 2}", "[1, \"2]", "[1,]", "[1,, 2]", "{\"a\": 1,}",
+            "[1] 2", "[[1] [2]]", "01", "1.", ".1", "+1", "1e", "-", "tru", "truex", "nul", "[true\"x\"]",
+            "\"\\x\"", "\"\\u12\"", "\"a\nb\"", "{a: 1}", "{\"a\" 1}", "[NaN]", "'x'", "[1]//", "\"\\",
+            "[[[[[1]]]]]"
+        };
+        JSONFactory[] factories = {
+            factory(),
+            optBuilder(JSONFeature.TRAILING_COMMA, JSONFeature.DUPLICATE_FIELD_NAMES).maxNestingLevel(4).build(),
+            factory(JSONFeature.values())
+        };
+        for (JSONFactory factory : factories) {
+            for (String json : examples) {
+                assertSameAsLexer(factory, json);
+            }
+        }
+    }
+
+    @Test
+    public void testDeepNesting() {
+        JSONFactory unlimited = optBuilder().maxNestingLevel(-1).build();
+        for (int depth : new int[] {100, 100000}) {
+            String json = "[{\"x\":".repeat(depth) + "1" + "}]".repeat(depth);
+            // Deep values cannot be compared by equals(), which is recursive:
+            Object value = unlimited.parseIndexed(json);
+            for (int i = 0; i < depth; i++) {
+                value = ((JSONArray) value).get(0, JSONObject.class).get("x");
+            }
+            assertEquals(1, value);
+            assertSameAsLexer(unlimited, "[".repeat(depth) + "1, @" + "]".repeat(depth));
+        }
+    }
+
+    @Test
+    public void testInvalidUnicode() {
+        JSONFactory factory = factory();
+        assertSameAsLexer(factory, "[\"\ud800\"]");
+        assertSameAsLexer(factory, "[\"\udc00\ud800\"]");
+        byte[][] examples = {
+            {'"', (byte) 0xC0, (byte) 0x80, '"'},
+            {'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'},
+            {'"', (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, '"'},
+            {'"', (byte) 0xE4, (byte) 0xB8, '"'},
+            {'"', (byte) 0xFF, '"'},
+            {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '1'}
+        };
+        for (byte[] json : examples) {
+            assertSameAsLexer(factory, json, null);
+        }
+    }
+
+    @Test
+    public void testCaches() {
+        JSONStringCache keyCache = new JSONStringCache();
+        JSONStringCache valueCache = new JSONStringCache();
+        JSONFactory factory = optBuilder().keyCache(keyCache).valueCache(valueCache).build();
+        JSONArray array = (JSONArray) factory.parseIndexed("[{\"key\": \"value\"}, {\"key\": \"value\"}, {\"k\\u0065y\": \"v\u00e4lue\"}]");
+        String key = array.get(0, JSONObject.class).toMap().keySet().iterator().next();
+        assertSame(key, array.get(1, JSONObject.class).toMap().keySet().iterator().next());
+        assertSame(key, array.get(2, JSONObject.class).toMap().keySet().iterator().next());
+        assertSame(array.get(0, JSONObject.class).get("key"), array.get(1, JSONObject.class).get("key"));
+        assertEquals(2, keyCache.getHits());
+        assertEquals(1, valueCache.getHits());
+    }
+
+    @Test
+    public void runJsonSiteTests() throws IOException {
+        JSONFactory factory = SiteUtil.siteOptions();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            String json = SiteUtil.readString(is);
+            assertSameAsLexer(factory, json);
+            assertSameAsLexer(factory(), json);
+        });
+    }
+}
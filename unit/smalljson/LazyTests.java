@@ -0,0 +1,137 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+import smalljson.parser.JSONLazyParser;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class LazyTests {
+
+    private static Object parseDecoded(JSONFactory factory, String json) {
+        Object result = factory.parseLazy(json);
+        // Decodes all values:
+        String.valueOf(result);
+        return result;
+    }
+
+    private static void assertSameAsParser(JSONFactory factory, String json) {
+        Object expected = parseOrError(() -> factory.parse(json));
+        assertEquals(expected, parseOrError(() -> parseDecoded(factory, json)), json);
+        assertEquals(expected, parseOrError(() -> JSONLazyParser.materialize(factory.parseLazy(json))), json);
+    }
+
+    @Test
+    public void testOnDemand() {
+        JSONFactory factory = factory();
+        String json = "{\"id\": 1, \"name\": \"x\", \"items\": [1, 2x, {\"a\": 1, \"a\": 2}], \"nested\": {\"b\": [true]}}";
+        JSONObject object = (JSONObject) factory.parseLazy(json);
+        assertEquals(4, object.length());
+        assertTrue(object.has("items"));
+        assertEquals(1, object.get("id"));
+        assertEquals("x", object.opt("name", String.class));
+        JSONObject nested = object.get("nested", JSONObject.class);
+        assertSame(nested, object.get("nested"));
+        assertEquals(list(true), nested.get("b"));
+
+        JSONArray items = object.get("items", JSONArray.class);
+        assertEquals(1, items.get(0));
+        String error = assertThrows(JSONParseException.class, () -> factory.parse(json)).getMessage();
+        assertEquals(error, assertThrows(JSONParseException.class, () -> items.get(1)).getMessage());
+        // Replaced invalid value is returned as null:
+        assertNull(items.toList().set(1, 2));
+        assertThrows(JSONParseException.class, () -> items.get(2));
+        items.toList().remove(2);
+        assertEquals(list(1, 2), items);
+    }
+
+    @Test
+    public void testTransparent() throws IOException {
+        JSONFactory factory = factory();
+        String json = "{\"a\": [1, 2.5, \"\\u0078\", null], \"b\": {\"c\": {}, \"d\": []}, \"e\": \"\u00e9\"}";
+        Object eager = factory.parse(json);
+        Object lazy = factory.parseLazy(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(eager, lazy);
+        assertEquals(lazy, eager);
+        assertEquals(eager.hashCode(), factory.parseLazy(json).hashCode());
+
+        StringWriter expected = new StringWriter();
+        JSONWriter.writeTo(JSONWriteOptions.PRETTY, eager, expected);
+        StringWriter actual = new StringWriter();
+        JSONWriter.writeTo(JSONWriteOptions.PRETTY, factory.parseLazy(json), actual);
+        assertEquals(expected.toString(), actual.toString());
+
+        JSONObject object = (JSONObject) factory.parseLazy(json);
+        Iterator<Map.Entry<String, Object>> entries = object.iterator();
+        assertEquals(list(1, 2.5, "x", null), entries.next().getValue());
+        entries.remove();
+        assertEquals(map("c", map(), "d", list()), object.remove("b"));
+        object.put("f", 1);
+        assertEquals(map("e", "\u00e9", "f", 1), object);
+    }
+
+    @Test
+    public void testMaterialize() {
+        JSONFactory factory = factory();
+        String json = "{\"a\": [1, {\"b\": [2.5, \"x\"]}], \"c\": {\"d\": null}, \"e\": []}";
+        JSONObject lazy = (JSONObject) factory.parseLazy(json);
+        // Partially decoded:
+        lazy.get("a", JSONArray.class).get(0);
+        JSONObject detached = (JSONObject) JSONLazyParser.materialize(lazy);
+        JSONObject eager = factory.parseObject(json);
+        assertEquals(eager, detached);
+        assertSame(eager.toMap().getClass(), detached.toMap().getClass());
+        JSONArray a = detached.get("a", JSONArray.class);
+        assertSame(eager.get("a", JSONArray.class).toList().getClass(), a.toList().getClass());
+        assertSame(eager.toMap().getClass(), a.get(1, JSONObject.class).toMap().getClass());
+        assertEquals("x", JSONLazyParser.materialize("x"));
+
+        JSONArray items = (JSONArray) factory.parseLazy("[1, 2x]");
+        String error = assertThrows(JSONParseException.class, () -> factory.parse("[1, 2x]")).getMessage();
+        assertEquals(error, assertThrows(JSONParseException.class, () -> JSONLazyParser.materialize(items)).getMessage());
+
+        int depth = 2000;
+        JSONFactory deepFactory = optBuilder().maxNestingLevel(2 * depth + 1).build();
+        String deep = "[" + "[{\"x\": ".repeat(depth) + "1" + "}]".repeat(depth) + "]";
+        Object value = JSONLazyParser.materialize(((JSONArray) deepFactory.parseLazy(deep)).get(0));
+        for (int i = 0; i < depth; i++) {
+            value = ((JSONArray) value).get(0, JSONObject.class).get("x");
+        }
+        assertEquals(1, value);
+    }
+
+    @Test
+    public void testErrors() {
+        String[] examples = {
+            "1", "\"x\"", "[]", "{}", "", "[1 2]", "[1, [2, @]]", "{\"a\": 1, \"a\": 2}", "[1, \"2]", "[1,]", "[1,, 2]",
+            "{\"a\": 1,}", "[1] 2", "[[1] [2]]", "{\"a\" 1}", "{\"a\": }", "{\"a\"}", "{1: 2}", "[1:2]", "{\"a\": 1 \"b\": 2}",
+            "[}", "{]", "[[[[[1]]]]]", "[\"\\x\"]", "{\"\\x\": 1}", "[NaN]", "[01]", "[1, {\"a\": [2, tru]}]"
+        };
+        JSONFactory[] factories = {
+            factory(),
+            optBuilder(JSONFeature.TRAILING_COMMA, JSONFeature.DUPLICATE_FIELD_NAMES).maxNestingLevel(4).build(),
+            factory(JSONFeature.values())
+        };
+        for (JSONFactory factory : factories) {
+            for (String json : examples) {
+                assertSameAsParser(factory, json);
+            }
+        }
+    }
+
+    @Test
+    public void runJsonSiteTests() throws IOException {
+        JSONFactory factory = SiteUtil.siteOptions();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            String json = SiteUtil.readString(is);
+            assertSameAsParser(factory, json);
+            assertSameAsParser(factory(), json);
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class LinesTests {
+
+    private static String lines(int count) {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            buf.append("{\"i\": ").append(i).append(", \"s\": \"line ").append(i).append("\"}\n");
+        }
+        return buf.toString();
+    }
+
+    private static List<Object> expected(int count) {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(map("i", i, "s", "line " + i));
+        }
+        return list;
+    }
+
+    @Test
+    public void testLines() {
+        JSONFactory factory = factory();
+        String json = "1\n{\"a\": 2}\r\n\n  \n[3]";
+        assertEquals(list(1, map("a", 2), list(3)), list(factory.parseLines(JSONFactory.toFast(json)).toArray()));
+        assertEquals(list(1, map("a", 2), list(3)), list(factory.parseLines(new StringReader(json)).toArray()));
+        assertEquals(list(), list(factory.parseLines(JSONFactory.toFast("")).toArray()));
+        assertEquals(list(1, 2), list(factory.parseLines(new ChunkedReader("1\n\n2\n", 1)).toArray()));
+    }
+
+    @Test
+    public void testErrorLine() {
+        JSONFactory factory = factory();
+        JSONParseException ex = assertThrows(
+            JSONParseException.class,
+            () -> factory.parseLines(JSONFactory.toFast("1\n\n[2, 3]\n  [4,]\n5")).count()
+        );
+        assertEquals(4, ex.line);
+        assertEquals(6, ex.column);
+        assertEquals(15, ex.index);
+
+        String json = lines(10000) + "[\n";
+        JSONParseException pex = assertThrows(
+            JSONParseException.class,
+            () -> factory.parseLinesParallel(JSONFactory.toFast(json), true).count()
+        );
+        assertEquals(10001, pex.line);
+    }
+
+    @Test
+    public void testParallel() {
+        JSONFactory factory = factory();
+        String json = lines(20000);
+        assertEquals(expected(20000), factory.parseLinesParallel(new StringReader(json), true).collect(Collectors.toList()));
+        List<Object> unordered = factory.parseLinesParallel(JSONFactory.toFast(json), false).collect(Collectors.toList());
+        unordered.sort((o1, o2) -> Integer.compare(((JSONObject) o1).get("i", int.class), ((JSONObject) o2).get("i", int.class)));
+        assertEquals(expected(20000), unordered);
+    }
+
+    @Test
+    public void testPath() throws IOException {
+        JSONFactory factory = factory();
+        Path file = Files.createTempFile("smalljson", ".jsonl");
+        try {
+            Files.write(file, lines(100).getBytes(StandardCharsets.UTF_8));
+            try (Stream<Object> stream = factory.parseLines(file)) {
+                assertEquals(expected(100), stream.collect(Collectors.toList()));
+            }
+            try (Stream<Object> stream = factory.parseLinesParallel(file, true)) {
+                assertEquals(expected(100), stream.collect(Collectors.toList()));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
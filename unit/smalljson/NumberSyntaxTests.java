@@ -2,7 +2,10 @@ package smalljson;
 
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
 import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -31,6 +34,61 @@ public class NumberSyntaxTests {
         assertThrows(JSONParseException.class, () -> parse("1e-"));
     }
 
+    @Test
+    public void testIntegerRanges() {
+        assertEquals(Integer.MAX_VALUE, parse("2147483647"));
+        assertEquals(Integer.MIN_VALUE, parse("-2147483648"));
+        assertEquals(2147483648L, parse("2147483648"));
+        assertEquals(-2147483649L, parse("-2147483649"));
+        assertEquals(Long.MAX_VALUE, parse("9223372036854775807"));
+        assertEquals(Long.MIN_VALUE, parse("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"), parse("9223372036854775808"));
+        assertEquals(new BigInteger("-9223372036854775809"), parse("-9223372036854775809"));
+        assertEquals(new BigInteger("99999999999999999999"), parse("99999999999999999999"));
+        assertEquals(7, parse("007", JSONFeature.LEADING_ZEROS));
+        assertEquals(0, parse("-000", JSONFeature.LEADING_ZEROS));
+    }
+
+    @Test
+    public void testDoubles() {
+        String[] examples = {
+            "0.0", "-0.0", "0e1000", "1e-1000", "1e1000", "-1e1000",
+            "9007199254740993.0", "9007199254740993e0", "1e23", "8.41e21", "5e-324", "2.4703282292062327e-324",
+            "1.7976931348623157e308", "1.7976931348623159e308", "0.1", "0.30000000000000004",
+            "123456789012345678901234567890e-10", "0.000000000000000000000000000001234567890123456789012345",
+            "2.2250738585072011e-308", "2.2250738585072012e-308", "4.9406564584124654e-324"
+        };
+        for (String example : examples) {
+            assertEquals(Double.valueOf(example), parse(example), example);
+        }
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(value) || Double.isInfinite(value))
+                continue;
+            String str = Double.toString(value);
+            assertEquals(value, parse(str), str);
+            String rounded = String.format(Locale.ROOT, "%.6f", random.nextDouble() * 360 - 180);
+            assertEquals(Double.valueOf(rounded), parse(rounded), rounded);
+        }
+    }
+
+    @Test
+    public void testDecimalDigits() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder buf = new StringBuilder();
+            buf.append((char) ('1' + random.nextInt(9)));
+            int digits = random.nextInt(random.nextBoolean() ? 19 : 40);
+            for (int j = 0; j < digits; j++) {
+                buf.append((char) ('0' + random.nextInt(10)));
+            }
+            buf.append('e').append(random.nextInt(700) - 360);
+            String str = buf.toString();
+            assertEquals(Double.valueOf(str), parse(str), str);
+        }
+    }
+
     private static JSONFeature[] except(JSONFeature feature) {
         Set<JSONFeature> set = EnumSet.of(
             JSONFeature.LEADING_PLUS_SIGN, JSONFeature.LEADING_ZEROS, JSONFeature.LEADING_DECIMAL_POINT, JSONFeature.TRAILING_DECIMAL_POINT
@@ -0,0 +1,63 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class ParallelTests {
+
+    private static void assertSameAsSequential(JSONFactory factory, String json) {
+        Object expected = parseOrError(() -> factory.parse(json));
+        for (int splitDepth = 0; splitDepth <= 3; splitDepth++) {
+            int depth = splitDepth;
+            assertEquals(expected, parseOrError(() -> factory.parseParallel(json, ForkJoinPool.commonPool(), depth)), json);
+        }
+    }
+
+    @Test
+    public void testLarge() {
+        StringBuilder buf = new StringBuilder("{\"data\": [");
+        for (int i = 0; i < 50000; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append("{\"id\": ").append(i).append(", \"name\": \"item \\\"").append(i).append("\\\" ]}\", \"values\": [1.5, -2, null]}");
+        }
+        buf.append("], \"count\": 50000}");
+        String json = buf.toString();
+        JSONFactory factory = factory();
+        assertEquals(factory.parse(json), factory.parseParallel(json));
+        assertSameAsSequential(factory, json);
+    }
+
+    @Test
+    public void testErrors() {
+        String[] examples = {
+            "[1, 2, 3]", "{\"a\": {\"b\": [1, {\"c\": 2}]}}", "1", "\"x\"", "[]", "{}",
+            "[1 2]", "[1, [2, @]]", "{\"a\": 1, \"a\": 2}", "{\"a\": {\"b\": 1, \"b\": 2}}", "[[[[1]]]]", "[[[[[1]]]]]",
+            "[1, \"2]", "[1,]", "[1,, 2]", "{\"a\": 1,}", "[1] 2", "[[1] [2]]",
+            "-0*0", "[1] *", "{\"a\": 1} x y", "[1] \"x"
+        };
+        JSONFactory[] factories = {
+            factory(),
+            optBuilder(JSONFeature.TRAILING_COMMA, JSONFeature.ARRAY_MISSING_VALUES, JSONFeature.DUPLICATE_FIELD_NAMES).maxNestingLevel(4).build(),
+            optBuilder().maxNestingLevel(-1).build(),
+            factory(JSONFeature.EXTRA_CHARS)
+        };
+        for (JSONFactory factory : factories) {
+            for (String json : examples) {
+                assertSameAsSequential(factory, json);
+            }
+        }
+    }
+
+    @Test
+    public void runJsonSiteTests() throws IOException {
+        JSONFactory factory = SiteUtil.siteOptions();
+        SiteUtil.scanSiteTests((name, failing, is) -> assertSameAsSequential(factory, SiteUtil.readString(is)));
+    }
+}
@@ -0,0 +1,77 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+import smalljson.parser.JSONProjection;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class ProjectionTests {
+
+    private static final String JSON =
+        "{\"id\": 1, \"name\": \"x\", \"big\": {\"a\": [1, 2, {\"b\": \"}\"}]}, " +
+        "\"items\": [{\"id\": 10, \"x\": 2}, {\"id\": 20}, 3], \"a/b\": {\"~\": true, \"c\": false}, \"n\\u0061me2\": null}";
+
+    @Test
+    public void testFields() {
+        JSONFactory factory = factory();
+        assertEquals(
+            map("id", 1, "name2", null),
+            factory.parseObject(JSON, JSONProjection.of("/id", "/name2", "/missing"))
+        );
+        assertEquals(
+            map("items", list(map("id", 10), map("id", 20))),
+            factory.parseObject(JSON, JSONProjection.of("/items/*/id"))
+        );
+        assertEquals(
+            map("items", list(map("id", 20), 3)),
+            factory.parseObject(JSON, JSONProjection.of("/items/1", "/items/2"))
+        );
+        assertEquals(
+            map("a/b", map("~", true), "big", map("a", list(2))),
+            factory.parseObject(JSON, JSONProjection.of("/a~1b/~0", "/big/a/1", "/name/x"))
+        );
+        Map<String, Object> all = new LinkedHashMap<>(factory.parseObject(JSON).toMap());
+        assertEquals(new JSONObject(all), factory.parseObject(JSON, JSONProjection.of("")));
+        assertEquals(new JSONObject(all), factory.parseObject(JSON, JSONProjection.of("/*")));
+        assertEquals(map("big", map("a", list(1, 2, map("b", "}")))), factory.parseObject(JSON, JSONProjection.of("/big", "/big/a/0")));
+    }
+
+    @Test
+    public void testWildcardUnion() {
+        JSONFactory factory = factory();
+        String json = "{\"items\": [{\"id\": 1, \"name\": \"a\", \"x\": 0}, {\"id\": 2, \"name\": \"b\"}], \"*\": 3, \"y\": 4}";
+        JSONObject expected = map("items", list(map("id", 1, "name", "a"), map("id", 2)));
+        assertEquals(expected, factory.parseObject(json, JSONProjection.of("/items/*/id", "/items/0/name")));
+        assertEquals(expected, factory.parseObject(json, JSONProjection.of("/items/0/name", "/items/*/id")));
+        assertEquals(
+            map("items", list(factory.parseObject(json).get("items", JSONArray.class).get(0), map("id", 2))),
+            factory.parseObject(json, JSONProjection.of("/items/*/id", "/items/0"))
+        );
+        assertEquals(
+            map("items", list(map("id", 1), map("id", 2, "name", "b"))),
+            factory.parseObject(json, JSONProjection.of("/*/*/id", "/items/1/name"))
+        );
+        assertEquals(map("*", 3), factory.parseObject(json, JSONProjection.of("/~*")));
+    }
+
+    @Test
+    public void testSyntax() {
+        JSONFactory factory = factory(JSONFeature.UNQUOTED_FIELD_NAMES, JSONFeature.SINGLE_QUOTES);
+        assertEquals(
+            map("key", 1, "null", 2),
+            factory.parseObject("{key: 1, other: [{}], null: 2, 'x': 3}", JSONProjection.of("/key", "/null"))
+        );
+        for (String json : new String[] {" [1]", "\n \"x\"", "12"}) {
+            String expected = assertThrows(JSONParseException.class, () -> factory().parseObject(json)).getMessage();
+            assertEquals(expected, assertThrows(JSONParseException.class, () -> factory().parseObject(json, JSONProjection.of("/a"))).getMessage());
+        }
+        assertThrows(JSONParseException.class, () -> factory().parseObject("{\"a\": 1} 2", JSONProjection.of("/a")));
+        assertThrows(JSONParseException.class, () -> factory().parseObject("{\"a\": 1, \"a\": 2}", JSONProjection.of("/a")));
+        assertThrows(IllegalArgumentException.class, () -> JSONProjection.of("a"));
+        assertThrows(IllegalArgumentException.class, () -> JSONProjection.of("/a~2"));
+    }
+}
@@ -0,0 +1,178 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+import smalljson.parser.JSONPushParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class PushTests {
+
+    private static final int[] CHUNKS = {1, 2, 3, 7, 64, Integer.MAX_VALUE};
+
+    private static Object push(JSONFactory factory, byte[] json, int chunk, boolean direct) {
+        List<Object> values = new ArrayList<>();
+        JSONPushParser parser = factory.newPushParser(values::add);
+        for (int i = 0; i < json.length; i += chunk) {
+            int length = Math.min(chunk, json.length - i);
+            ByteBuffer bytes = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length + 2).position(1);
+            bytes.put(json, i, length).flip();
+            if (!direct) {
+                bytes.position(1);
+            }
+            parser.feed(bytes);
+            assertFalse(bytes.hasRemaining());
+        }
+        parser.endOfInput();
+        assertTrue(parser.isDone());
+        assertEquals(1, values.size());
+        return values.get(0);
+    }
+
+    private static void assertSameAsParser(JSONFactory factory, byte[] json) {
+        Object expected = parseOrError(() -> factory.parse(ByteBuffer.wrap(json)));
+        String message = new String(json, StandardCharsets.UTF_8);
+        for (int chunk : CHUNKS) {
+            assertEquals(expected, parseOrError(() -> push(factory, json, chunk, false)), message);
+        }
+        assertEquals(expected, parseOrError(() -> push(factory, json, 5, true)), message);
+    }
+
+    private static void assertSameAsParser(JSONFactory factory, String json) {
+        assertSameAsParser(factory, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChunks() {
+        JSONFactory factory = factory();
+        String[] examples = {
+            "{\"key\": \"value\", \"escapes\": \"a\\n\\u0041\\u00e9\\\"b\", \"unicode\": \"\u00e9\u4e2d\ud83d\ude00\"}",
+            "[12345678901234567890, -0.000123e+45, 1.5, -0, 0, true, false, null]",
+            "  {\"a\": {\"b\": [1, [], {}, [[\"x\"]]]}}  \r\n",
+            "1", "\"x\"", "-12.5e3", "",
+            "[1 2]", "[1, [2, @]]", "{\"a\": 1, \"a\": 2}", "[1, \"2]", "[1,]", "{\"a\": 1,}", "[1] 2", "tru", "[tru",
+            "{\"a\" 1}", "\"\\u12\"", "[01]", "[\n\"a\nb\"]", "[NaN]"
+        };
+        for (String json : examples) {
+            assertSameAsParser(factory, json);
+        }
+        assertSameAsParser(optBuilder().maxNestingLevel(2).build(), "[[1], [[2]]]");
+    }
+
+    @Test
+    public void testFeatures() {
+        JSONFactory factory = factory(JSONFeature.values());
+        String[] examples = {
+            "{ \"key\": \"value\", \"escapes\": \"a\\n\\u0041\\u00e9\\\"b\\x\\u41\" }",
+            "// line comment\r\n[1, /* block ** comment */ 2]\n// end",
+            "[12345678901234567890, -0.000123e+45, 123., .5, +7, 0012]",
+            "[true, False, NULL, NaN, -Infinity, 'single', unknownIdent]",
+            "{ unquoted: 1, \"dup\": 1, \"dup\": 2, }",
+            "[\"\ttab\nline\",, 1,]",
+            "[,]",
+            "[1,,]",
+            "[] extra",
+            "[] \"unterminated",
+            "[1] /* unterminated"
+        };
+        for (String json : examples) {
+            assertSameAsParser(factory, json);
+        }
+    }
+
+    @Test
+    public void testMalformedUtf8() {
+        JSONFactory factory = factory();
+        byte[][] examples = {
+            {'"', (byte) 0xC0, (byte) 0x80, '"'},
+            {'"', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"'},
+            {'"', (byte) 0xF0, (byte) 0x9F, (byte) 0x98, '"'},
+            {'"', (byte) 0xE4, (byte) 0xB8, 'a', '"'},
+            {'"', (byte) 0xFF, '"'},
+            {'"', 'a', (byte) 0xE4, (byte) 0xB8}
+        };
+        for (byte[] json : examples) {
+            assertSameAsParser(factory, json);
+        }
+    }
+
+    @Test
+    public void testArrayElements() {
+        JSONFactory factory = factory();
+        byte[] json = "[1, {\"a\": [2]}, \"x\", null]".getBytes(StandardCharsets.UTF_8);
+        List<Object> values = new ArrayList<>();
+        JSONPushParser parser = factory.newArrayPushParser(values::add);
+        for (int i = 0; i < 8; i++) {
+            parser.feed(ByteBuffer.wrap(json, i, 1));
+        }
+        assertEquals(list(1), new JSONArray(values));
+        parser.feed(ByteBuffer.wrap(json, 8, json.length - 8));
+        assertEquals(list(1, map("a", list(2)), "x", null), new JSONArray(values));
+        assertFalse(parser.isDone());
+        parser.endOfInput();
+        assertTrue(parser.isDone());
+        assertThrows(IllegalStateException.class, () -> parser.feed(ByteBuffer.allocate(0)));
+
+        JSONPushParser failing = factory.newArrayPushParser(values::add);
+        JSONParseException error = assertThrows(JSONParseException.class, () -> failing.feed(ByteBuffer.wrap("{} ".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("Array must start with '[', but '{' found at 1:1", error.getMessage());
+        assertSame(error, assertThrows(JSONParseException.class, failing::endOfInput));
+    }
+
+    @Test
+    public void testLongTokens() {
+        JSONFactory factory = factory();
+        List<Object> values = new ArrayList<>();
+        JSONPushParser parser = factory.newArrayPushParser(values::add);
+        String text = "x".repeat(1000);
+        parser.feed(ByteBuffer.wrap(("[\"" + text).getBytes(StandardCharsets.UTF_8)));
+        assertEquals(list(), new JSONArray(values));
+        // Long elements are passed to the consumer as soon as they are complete:
+        parser.feed(ByteBuffer.wrap("\",".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(list(text), new JSONArray(values));
+        parser.feed(ByteBuffer.wrap("1,".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(list(text, 1), new JSONArray(values));
+        String escaped = "\\\"".repeat(500);
+        parser.feed(ByteBuffer.wrap((" \"" + escaped).getBytes(StandardCharsets.UTF_8)));
+        parser.feed(ByteBuffer.wrap("\\\\".getBytes(StandardCharsets.UTF_8)));
+        parser.feed(ByteBuffer.wrap("\", ".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(list(text, 1, "\"".repeat(500) + "\\"), new JSONArray(values));
+        parser.feed(ByteBuffer.wrap(("12345" + "6".repeat(1000)).getBytes(StandardCharsets.UTF_8)));
+        parser.feed(ByteBuffer.wrap("]".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(4, values.size());
+        parser.endOfInput();
+        assertTrue(parser.isDone());
+    }
+
+    @Test
+    public void testLarge() {
+        StringBuilder buf = new StringBuilder("[");
+        for (int i = 0; i < 20000; i++) {
+            if (i > 0) {
+                buf.append(",\n");
+            }
+            buf.append("{\"id\": ").append(i).append(", \"text\": \"").append("\u00e9\\\"x".repeat(i % 50)).append("\"}");
+        }
+        buf.append("]");
+        byte[] json = buf.toString().getBytes(StandardCharsets.UTF_8);
+        JSONFactory factory = factory();
+        assertEquals(factory.parse(new ByteArrayInputStream(json)), push(factory, json, 1000, false));
+        assertEquals(factory.parse(new ByteArrayInputStream(json)), push(factory, json, 8191, false));
+    }
+
+    @Test
+    public void runJsonSiteTests() throws IOException {
+        JSONFactory factory = SiteUtil.siteOptions();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            byte[] json = SiteUtil.readString(is).getBytes(StandardCharsets.UTF_8);
+            assertSameAsParser(factory, json);
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+import smalljson.parser.FastMappedReader;
+import smalljson.parser.FastReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.Pipe;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.factory;
+import static smalljson.TestUtil.list;
+import static smalljson.TestUtil.map;
+
+public class ReaderTests {
+
+    private static final String[] STRINGS = {
+        "",
+        "ascii",
+        "été",
+        "фыва",
+        "€ 中文",
+        "🍕 pizza 🍕",
+        "\u007f\u0080߿ࠀ￿"
+    };
+
+    private static InputStream slowStream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    @Test
+    public void testUtf8Stream() {
+        JSONFactory factory = factory();
+        for (String str : STRINGS) {
+            String json = "[\"" + str + "\"]";
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            assertEquals(list(str), factory.parse(new ByteArrayInputStream(bytes)));
+            assertEquals(list(str), factory.parse(slowStream(bytes)));
+        }
+    }
+
+    @Test
+    public void testByteBuffers() {
+        JSONFactory factory = factory();
+        for (String str : STRINGS) {
+            String json = "[\"" + str + "\"]";
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            assertEquals(list(str), factory.parse(ByteBuffer.wrap(bytes)));
+            assertEquals(list(str), factory.parseArray(Channels.newChannel(slowStream(bytes))));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+            direct.put((byte) '@').put(bytes).put((byte) '@');
+            direct.position(1).limit(bytes.length + 1);
+            assertEquals(list(str), factory.parseArray(direct));
+            assertEquals(1, direct.position());
+        }
+    }
+
+    @Test
+    public void testChannels() throws IOException {
+        JSONFactory factory = factory();
+        for (int i = 0; i < 3; i++) {
+            // Pooled reader is reused:
+            byte[] bytes = ("{\"a\": [" + i + ", \"\u00e9\"]}").getBytes(StandardCharsets.UTF_8);
+            assertEquals(map("a", list(i, "\u00e9")), factory.parse(Channels.newChannel(slowStream(bytes))));
+            assertEquals(map("a", list(i, "\u00e9")), factory.parseObject(Channels.newChannel(new ByteArrayInputStream(bytes))));
+        }
+        Pipe pipe = Pipe.open();
+        try {
+            pipe.source().configureBlocking(false);
+            assertThrows(IllegalBlockingModeException.class, () -> factory.parse(pipe.source()));
+            assertThrows(IllegalBlockingModeException.class, () -> JSONFactory.toFast(pipe.source()));
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    private static void testMalformed(String expected, int... bytes) {
+        byte[] json = new byte[bytes.length + 2];
+        json[0] = '"';
+        for (int i = 0; i < bytes.length; i++) {
+            json[i + 1] = (byte) bytes[i];
+        }
+        json[json.length - 1] = '"';
+        JSONFactory factory = factory();
+        assertEquals(expected, factory.parse(new ByteArrayInputStream(json)));
+        assertEquals(expected, factory.parse(slowStream(json)));
+    }
+
+    @Test
+    public void testMalformedUtf8() {
+        testMalformed("\uFFFD", 0x80);
+        testMalformed("\uFFFD\uFFFD", 0xC0, 0xAF);
+        testMalformed("\uFFFD", 0xC3);
+        testMalformed("\uFFFD", 0xE2, 0x82);
+        testMalformed("\uFFFDx", 0xE2, 0x82, 'x');
+        testMalformed("\uFFFD\uFFFD\uFFFD", 0xE0, 0x80, 0x80);
+        testMalformed("\uFFFD\uFFFD\uFFFD", 0xED, 0xA0, 0x80);
+        testMalformed("\uFFFD", 0xF0, 0x9F, 0x8D);
+        testMalformed("\uFFFD\uFFFD\uFFFD\uFFFD", 0xF4, 0x90, 0x80, 0x80);
+        testMalformed("\uFFFDx", 0xFF, 'x');
+    }
+
+    @Test
+    public void testPath() throws IOException {
+        JSONFactory factory = factory();
+        Path file = Files.createTempFile("smalljson", ".json");
+        try {
+            String json = "{ \"x\": [\"" + String.join("\", \"", STRINGS) + "\"] }";
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+            assertEquals(factory.parse(json), factory.parse(file));
+            assertEquals(factory.parseObject(json), factory.parseObject(file));
+            Files.write(file, ("[" + json + "]").getBytes(StandardCharsets.UTF_8));
+            assertEquals(factory.parseArray("[" + json + "]"), factory.parseArray(file));
+            // Files are decoded strictly, like by Files.newBufferedReader:
+            Files.write(file, new byte[] {'[', '"', (byte) 0xE2, (byte) 0x82, '"', ']'});
+            UncheckedIOException error = assertThrows(UncheckedIOException.class, () -> factory.parse(file));
+            assertInstanceOf(MalformedInputException.class, error.getCause());
+            assertThrows(UncheckedIOException.class, () -> factory.parseArray(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testMappedChunks() throws IOException {
+        JSONFactory factory = factory();
+        Path file = Files.createTempFile("smalljson", ".json");
+        try {
+            String json = "{ \"x\": [\"" + String.join("\", \"", STRINGS) + "\"] }";
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+            for (int chunkSize = 1; chunkSize <= 5; chunkSize++) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    assertEquals(factory.parse(json), factory.parse(new FastMappedReader(channel, chunkSize)));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Same as {@link TestUtil#parseOrError}, but also includes the error position, which depends on the reader
+     */
+    private static Object parseOrErrorAt(JSONFactory factory, FastReader rdr) {
+        try {
+            return factory.parse(rdr);
+        } catch (JSONParseException ex) {
+            return ex.getMessage() + " @" + ex.index;
+        }
+    }
+
+    @Test
+    public void testWindowBoundaries() {
+        JSONFactory factory = factory(JSONFeature.values());
+        String[] examples = {
+            "{ \"key\": \"value\", \"escapes\": \"a\\n\\u0041\\u00e9\\\"b\" }",
+            "// line comment\r\n[1, /* block ** comment */ 2]\n",
+            "[12345678901234567890, -0.000123e+45, 123., .5, +7, 0012]",
+            "[true, False, NULL, NaN, -Infinity, 'single', unknownIdent]",
+            "{ unquoted: 1, \"dup\": 1, \"dup\": 2, }",
+            "[\"\ttab\nline\",, 1,]",
+            "[\"\uD83C\uDF55 pizza\", \"\\uD83C\\uDF55\"]",
+            "/* not closed",
+            "[\"not closed",
+            "\n\r\n[1,\r\r 2 @]",
+            "[1 /x]"
+        };
+        for (String json : examples) {
+            Object expected = parseOrErrorAt(factory, JSONFactory.toFast(json));
+            for (int chunk = 1; chunk <= 5; chunk++) {
+                assertEquals(expected, parseOrErrorAt(factory, new ChunkedReader(json, chunk)), json);
+            }
+            assertEquals(expected, parseOrErrorAt(factory, charReader(json)), json);
+        }
+        assertEquals(list(1, 2).toList(), factory.parseLines(charReader("1\n2\n")).collect(Collectors.toList()));
+    }
+
+    /**
+     * Reader which only overrides {@link FastReader#read()}, without a window
+     */
+    private static FastReader charReader(String str) {
+        return new FastReader() {
+
+            private int offset = 0;
+
+            @Override
+            public int read() {
+                return offset < str.length() ? str.charAt(offset++) : -1;
+            }
+        };
+    }
+}
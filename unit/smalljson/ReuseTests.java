@@ -0,0 +1,130 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+import smalljson.parser.FastStringReader;
+import smalljson.parser.JSONParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class ReuseTests {
+
+    private static final String[] EXAMPLES = {
+        "{\"key\": \"value\", \"escapes\": \"a\\n\\u0041\\u00e9\\\"b\", \"unicode\": \"é中😀\"}",
+        "[12345678901234567890, -0.000123e+45, 1.5, -0, 0, true, false, null]",
+        "  {\"a\": {\"b\": [1, [], {}, [[\"x\"]]]}}  \r\n",
+        "[1,\n 2,\n @]", "{\"a\": 1, \"a\": 2}", "\"unterminated", "1", "[1] 2"
+    };
+
+    private static Object parse(JSONFactory factory, int input, String json) {
+        switch (input) {
+        case 0:
+            return factory.parse(json);
+        case 1:
+            return factory.parse(new StringReader(json));
+        case 2:
+            return factory.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        case 3:
+            return factory.parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        default:
+            return factory.parse(new ChunkedReader(json, 3));
+        }
+    }
+
+    private static Object parseNew(String json) {
+        return new JSONParser(JSONParseOptions.DEFAULT, new FastStringReader(json)).parse();
+    }
+
+    private static void assertSameAsNew(JSONFactory factory, int input, String json) {
+        assertSameResult(() -> parseNew(json), () -> parse(factory, input, json), json);
+    }
+
+    private static void assertResets(JSONParser parser) {
+        for (String json : EXAMPLES) {
+            assertSameResult(() -> parseNew(json), () -> {
+                parser.reset(new FastStringReader(json));
+                return parser.parse();
+            }, json);
+        }
+    }
+
+    @Test
+    public void testReset() {
+        JSONParser parser = new JSONParser(JSONParseOptions.DEFAULT, new FastStringReader("[1, 2"));
+        assertThrows(JSONParseException.class, parser::parse);
+        assertResets(parser);
+    }
+
+    @Test
+    public void testResetAfterDeep() {
+        // Deep documents grow the container stack, which is not kept by reset:
+        JSONParseOptions options = JSONParseOptions.builder().maxNestingLevel(-1).buildOptions();
+        String deep = "[".repeat(1000) + "]".repeat(1000);
+        JSONParser parser = new JSONParser(options, new FastStringReader(deep));
+        parser.parse();
+        parser.reset(new FastStringReader("[" + deep));
+        assertThrows(JSONParseException.class, parser::parse);
+        assertResets(parser);
+    }
+
+    @Test
+    public void testPooled() {
+        JSONFactory[] factories = {factory(), optBuilder().bufferSize(16).build()};
+        for (JSONFactory factory : factories) {
+            // Repeated to reuse pooled parsers after both successful and failed parsing:
+            for (int i = 0; i < 2; i++) {
+                for (String json : EXAMPLES) {
+                    for (int input = 0; input < 5; input++) {
+                        assertSameAsNew(factory, input, json);
+                    }
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> optBuilder().bufferSize(1));
+    }
+
+    @Test
+    public void testThreads() throws Exception {
+        JSONFactory factory = factory();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                int input = t % 5;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        for (String json : EXAMPLES) {
+                            assertSameAsNew(factory, input, json);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLongStrings() {
+        JSONFactory factory = factory();
+        String text = "\\\"x".repeat(50000);
+        String json = "[\"" + text + "\", 123456789012345678901234567890, \"a\\nb\"]";
+        for (int input = 0; input < 5; input++) {
+            assertSameAsNew(factory, input, json);
+        }
+        assertEquals(list("\"", 1), factory.parse("[\"\\\"\", 1]"));
+    }
+}
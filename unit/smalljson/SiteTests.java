@@ -4,8 +4,8 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.assertSameResult;
 
 public class SiteTests {
 
@@ -27,4 +27,21 @@ public class SiteTests {
             }
         });
     }
+
+    private static Object parse(JSONFactory factory, String json, int chunk) {
+        return factory.parse(chunk > 0 ? new ChunkedReader(json, chunk) : JSONFactory.toFast(json));
+    }
+
+    /**
+     * Fast paths for standard JSON must give the same results and errors as the general path
+     */
+    @Test
+    public void runStandardPathTests() throws IOException {
+        JSONFactory options = SiteUtil.siteOptions();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            String json = SiteUtil.readString(is);
+            assertSameResult(() -> parse(options, json, 1), () -> parse(options, json, 0), name);
+            assertSameResult(() -> parse(options, json, 1), () -> parse(options, json, 3), name);
+        });
+    }
 }
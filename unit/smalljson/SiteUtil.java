@@ -1,7 +1,10 @@
 package smalljson;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -41,4 +44,20 @@ public class SiteUtil {
             }
         }
     }
+
+    public static String readString(InputStream is) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            while (true) {
+                int read = is.read(buf);
+                if (read < 0)
+                    break;
+                bos.write(buf, 0, read);
+            }
+            return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
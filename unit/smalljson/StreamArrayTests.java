@@ -0,0 +1,72 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class StreamArrayTests {
+
+    @Test
+    public void testStream() {
+        JSONFactory factory = factory();
+        String json = "[1, {\"a\": [2]}, \"x\", null]";
+        assertEquals(list(1, map("a", list(2)), "x", null), list(factory.streamArray(new StringReader(json)).toArray()));
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        assertEquals(list(1, map("a", list(2)), "x", null), list(factory.streamArray(new ByteArrayInputStream(bytes)).toArray()));
+        assertEquals(list(), list(factory.streamArray(new StringReader("[]")).toArray()));
+    }
+
+    @Test
+    public void testLazy() {
+        JSONFactory factory = factory();
+        Iterator<Object> iterator = factory.streamArray(JSONFactory.toFast("[1, 2, @")).iterator();
+        assertEquals(1, iterator.next());
+        assertEquals(2, iterator.next());
+        assertThrows(JSONParseException.class, iterator::hasNext);
+    }
+
+    @Test
+    public void testFeatures() {
+        String[] examples = {"[1, 2, ]", "[1,, 2]", "[,]", "[1 2]", "[1] 2", "{}", "[1, [2, 3], {\"b\": []}]", "[1"};
+        JSONFactory[] factories = {
+            factory(),
+            factory(JSONFeature.TRAILING_COMMA),
+            factory(JSONFeature.ARRAY_MISSING_VALUES),
+            factory(JSONFeature.TRAILING_COMMA, JSONFeature.ARRAY_MISSING_VALUES, JSONFeature.EXTRA_CHARS)
+        };
+        for (JSONFactory factory : factories) {
+            for (String json : examples) {
+                assertSameResult(
+                    () -> factory.parseArray(json),
+                    () -> list(factory.streamArray(new StringReader(json)).toArray()),
+                    json
+                );
+            }
+        }
+    }
+
+    @Test
+    public void testPath() throws IOException {
+        JSONFactory factory = factory();
+        Path file = Files.createTempFile("smalljson", ".json");
+        try {
+            Files.write(file, "[1, 2, 3]".getBytes(StandardCharsets.UTF_8));
+            try (Stream<Object> stream = factory.streamArray(file)) {
+                assertEquals(list(1, 2, 3).toList(), stream.collect(Collectors.toList()));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package smalljson;
+
+import org.junit.jupiter.api.Test;
+import smalljson.parser.JSONProjection;
+import smalljson.parser.JSONStreamReader;
+import smalljson.parser.JSONTokenType;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static smalljson.TestUtil.*;
+
+public class StreamReaderTests {
+
+    private static JSONStreamReader reader(JSONFactory factory, String json) {
+        return factory.newStreamReader(JSONFactory.toFast(json));
+    }
+
+    private static Object read(JSONStreamReader reader) {
+        assertTrue(reader.nextValue());
+        Object value = reader.getValue();
+        assertFalse(reader.nextValue());
+        return value;
+    }
+
+    @Test
+    public void testFields() {
+        String json = "{\"id\": 123, \"skipped\": {\"a\": [1, {\"b\": \"}]\\\"\"}]}, \"name\": \"x\", \"values\": [1.5, true, null]}";
+        JSONStreamReader reader = reader(factory(), json);
+        assertTrue(reader.nextValue());
+        assertEquals(JSONTokenType.LCURLY, reader.getValueType());
+        reader.beginObject();
+        assertEquals(1, reader.getDepth());
+        assertTrue(reader.nextField());
+        assertEquals("id", reader.getFieldName());
+        assertEquals(123L, reader.getLong());
+        assertTrue(reader.nextField());
+        assertEquals("skipped", reader.getFieldName());
+        assertTrue(reader.nextField());
+        assertEquals("name", reader.getFieldName());
+        assertEquals("x", reader.getString());
+        assertTrue(reader.nextField());
+        reader.beginArray();
+        assertEquals(2, reader.getDepth());
+        assertTrue(reader.nextValue());
+        assertEquals(1.5, reader.getDouble());
+        assertTrue(reader.nextValue());
+        assertTrue(reader.getBoolean());
+        assertTrue(reader.nextValue());
+        assertNull(reader.getString());
+        assertFalse(reader.nextValue());
+        assertEquals(1, reader.getDepth());
+        assertFalse(reader.nextField());
+        assertEquals(0, reader.getDepth());
+        assertFalse(reader.nextValue());
+    }
+
+    @Test
+    public void testSkip() {
+        String json = "[[1, [2, 3]], {\"a\": \"]\"}, 4]";
+        JSONStreamReader reader = reader(factory(), json);
+        reader.nextValue();
+        reader.beginArray();
+        assertTrue(reader.nextValue());
+        reader.beginArray();
+        assertTrue(reader.nextValue());
+        assertEquals(1, reader.getInt());
+        reader.skipChildren();
+        assertEquals(1, reader.getDepth());
+        assertTrue(reader.nextValue());
+        reader.skipValue();
+        assertTrue(reader.nextValue());
+        assertEquals(list(4), list(reader.getValue()));
+        assertFalse(reader.nextValue());
+        assertFalse(reader.nextValue());
+
+        for (int chunk = 1; chunk <= 3; chunk++) {
+            JSONFactory factory = factory(JSONFeature.JAVA_COMMENTS, JSONFeature.SINGLE_QUOTES);
+            JSONStreamReader chunked = factory.newStreamReader(new ChunkedReader("[{'a\\'': [\"\\\"]\"] /* ] */}, \n2]", chunk));
+            chunked.nextValue();
+            chunked.beginArray();
+            chunked.nextValue();
+            chunked.skipValue();
+            chunked.nextValue();
+            assertEquals(2, chunked.getInt());
+            assertFalse(chunked.nextValue());
+        }
+
+        assertThrows(JSONParseException.class, () -> {
+            JSONStreamReader r = reader(optBuilder().maxNestingLevel(2).build(), "[[[1]]]");
+            r.nextValue();
+            r.skipValue();
+        });
+        assertThrows(JSONParseException.class, () -> {
+            JSONStreamReader r = reader(factory(), "[1, \"2]");
+            r.nextValue();
+            r.skipValue();
+        });
+        assertThrows(IllegalStateException.class, () -> reader(factory(), "{}").nextField());
+    }
+
+    @Test
+    public void testDeepNesting() {
+        JSONFactory unlimited = optBuilder().maxNestingLevel(-1).build();
+        int depth = 100000;
+        String json = "[{\"x\":".repeat(depth) + "1" + "}]".repeat(depth);
+        JSONStreamReader reader = reader(unlimited, json);
+        reader.nextValue();
+        Object value = reader.getValue();
+        assertFalse(reader.nextValue());
+        // Deep values cannot be compared by equals(), which is recursive:
+        for (int i = 0; i < depth; i++) {
+            value = ((JSONArray) value).get(0, JSONObject.class).get("x");
+        }
+        assertEquals(1, value);
+        Object projected = unlimited.parseObject("{\"r\": " + json + "}", JSONProjection.of("/r/0/x")).get("r");
+        for (int i = 0; i < depth; i++) {
+            projected = ((JSONArray) projected).get(0, JSONObject.class).get("x");
+        }
+        assertEquals(1, projected);
+
+        String small = "{\"a\": [1, {\"b\": [[], {}], \"c\": null}, [2, [3]]], \"d\": {}}";
+        assertSameResult(() -> factory().parse(small), () -> read(reader(factory(), small)), small);
+        String invalid = "[".repeat(depth) + "1, 2, @" + "]".repeat(depth);
+        assertSameResult(() -> unlimited.parse(invalid), () -> read(reader(unlimited, invalid)), null);
+    }
+
+    @Test
+    public void testTypeErrors() {
+        JSONStreamReader reader = reader(factory(), "[\"x\", 1]");
+        reader.nextValue();
+        reader.beginArray();
+        reader.nextValue();
+        assertThrows(JSONParseException.class, reader::getInt);
+        assertThrows(JSONParseException.class, reader::beginObject);
+        assertEquals("x", reader.getString());
+        reader.nextValue();
+        assertThrows(JSONParseException.class, reader::getString);
+        assertEquals(1, reader.getInt());
+    }
+
+    @Test
+    public void testFeatures() {
+        JSONFactory factory = factory(JSONFeature.values());
+        String[] examples = {
+            "{ \"key\": \"value\", \"escapes\": \"a\\n\\u0041\\u00e9\\\"b\" }",
+            "// line comment\r\n[1, /* block ** comment */ 2]\n",
+            "[12345678901234567890, -0.000123e+45, 123., .5, +7, 0012]",
+            "[true, False, NULL, NaN, -Infinity, 'single', unknownIdent]",
+            "{ unquoted: 1, \"dup\": 1, \"dup\": 2, }",
+            "[\"\ttab\nline\",, 1,]",
+            "[,]",
+            "[1,,]",
+            "[] extra",
+            "-0*0",
+            "[1] \"x"
+        };
+        for (String json : examples) {
+            assertSameResult(() -> factory.parse(json), () -> read(reader(factory, json)), json);
+            for (int chunk = 1; chunk <= 3; chunk++) {
+                ChunkedReader input = new ChunkedReader(json, chunk);
+                assertSameResult(() -> factory.parse(json), () -> read(factory.newStreamReader(input)), json);
+            }
+        }
+    }
+
+    @Test
+    public void runJsonSiteTests() throws IOException {
+        JSONFactory factory = SiteUtil.siteOptions();
+        SiteUtil.scanSiteTests((name, failing, is) -> {
+            String json = SiteUtil.readString(is);
+            assertSameResult(() -> factory.parse(json), () -> read(reader(factory, json)), name);
+        });
+    }
+}
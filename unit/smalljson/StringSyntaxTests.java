@@ -2,11 +2,16 @@ package smalljson;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static smalljson.TestUtil.factory;
+import static smalljson.TestUtil.list;
 import static smalljson.TestUtil.parse;
 
 public class StringSyntaxTests {
@@ -32,6 +37,22 @@ public class StringSyntaxTests {
         assertThrows(JSONParseException.class, () -> parse("\"\uD83C"));
     }
 
+    @Test
+    public void testLongStrings() {
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            buf.append((char) ('a' + i % 26));
+        }
+        String plain = buf.toString();
+        String escaped = plain.replace("z", "\\n");
+        String json = "[\"" + plain + "\", \"" + escaped + "\"]";
+        JSONArray expected = list(plain, plain.replace('z', '\n'));
+        JSONFactory factory = factory();
+        assertEquals(expected, factory.parse(json));
+        assertEquals(expected, factory.parse(new StringReader(json)));
+        assertEquals(expected, factory.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+    }
+
     private static JSONFeature[] except(JSONFeature feature) {
         Set<JSONFeature> set = EnumSet.of(
             JSONFeature.INVALID_ESCAPES, JSONFeature.SINGLE_QUOTES, JSONFeature.STRING_CONTROL_CHARS
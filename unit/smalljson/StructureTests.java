@@ -2,10 +2,12 @@ package smalljson;
 
 import org.junit.jupiter.api.Test;
 import smalljson.parser.JSONParser;
+import smalljson.parser.JSONToken;
 import smalljson.parser.JSONTokenType;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.io.UncheckedIOException;
 import java.math.BigInteger;
 
@@ -61,9 +63,39 @@ public class StructureTests {
         );
     }
 
+    @Test
+    public void testTokenStream() {
+        JSONParser parser = rawParser("{\"x\": [1, \"s\"],\n \"y\": null}");
+        JSONTokenType[] expected = {
+            JSONTokenType.LCURLY, JSONTokenType.STRING, JSONTokenType.COLON,
+            JSONTokenType.LSQUARE, JSONTokenType.INT, JSONTokenType.COMMA, JSONTokenType.STRING, JSONTokenType.RSQUARE,
+            JSONTokenType.COMMA, JSONTokenType.STRING, JSONTokenType.COLON, JSONTokenType.NULL,
+            JSONTokenType.RCURLY, JSONTokenType.EOF
+        };
+        for (JSONTokenType type : expected) {
+            assertEquals(type, parser.getCurrent().type);
+            parser.next();
+        }
+        JSONParser parser2 = rawParser("{\"x\": [1, \"s\"],\n \"y\": null}");
+        for (int i = 0; i < 9; i++) {
+            parser2.next();
+        }
+        JSONToken token = parser2.getCurrent();
+        assertEquals("y", token.text);
+        assertEquals(17, token.index);
+        assertEquals(2, token.line);
+        assertEquals(2, token.column);
+    }
+
     private static void testLocation(String json, long index, int line, int column) {
+        // Lines are computed on demand for strings and tracked while parsing for readers:
+        testLocation(() -> parse(json), index, line, column);
+        testLocation(() -> factory().parse(new StringReader(json)), index, line, column);
+    }
+
+    private static void testLocation(Runnable parse, long index, int line, int column) {
         try {
-            parse(json);
+            parse.run();
             fail("Must throw JSONParseException");
         } catch (JSONParseException ex) {
             assertEquals(index, ex.index);
@@ -153,6 +185,31 @@ public class StructureTests {
         assertThrows(JSONParseException.class, () -> options2.parseObject("{\"x\":[{}]}"));
     }
 
+    @Test
+    public void testDeepNesting() throws InterruptedException {
+        int depth = 100000;
+        String json = "[{\"x\":".repeat(depth) + "1" + "}]".repeat(depth);
+        JSONFactory unlimited = optBuilder().maxNestingLevel(-1).build();
+        Object[] result = new Object[1];
+        // Small stack is enough, since the parser does not recurse:
+        Thread thread = new Thread(null, () -> result[0] = unlimited.parse(json), "parser", 64 * 1024);
+        thread.start();
+        thread.join();
+        Object value = result[0];
+        for (int i = 0; i < depth; i++) {
+            JSONArray array = (JSONArray) value;
+            assertEquals(1, array.length());
+            JSONObject object = array.get(0, JSONObject.class);
+            assertEquals(1, object.length());
+            value = object.get("x");
+        }
+        assertEquals(1, value);
+
+        JSONFactory limited = optBuilder().maxNestingLevel(2 * depth - 1).build();
+        JSONParseException error = assertThrows(JSONParseException.class, () -> limited.parse(json));
+        assertEquals("Maximum nesting level " + (2 * depth - 1) + " reached at 1:" + (6 * depth - 4), error.getMessage());
+    }
+
     @Test
     public void testBadNesting() {
         assertThrows(JSONParseException.class, () -> parse("{[}]"));
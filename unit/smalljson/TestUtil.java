@@ -4,6 +4,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class TestUtil {
 
@@ -38,4 +41,22 @@ public class TestUtil {
     public static Object parse(String json, JSONFeature... features) {
         return factory(features).parse(json);
     }
+
+    /**
+     * @return parsed value, or message of the parse error, so that both can be compared
+     */
+    public static Object parseOrError(Supplier<?> parse) {
+        try {
+            return parse.get();
+        } catch (JSONParseException ex) {
+            return ex.getMessage();
+        }
+    }
+
+    /**
+     * Checks that both ways of parsing give the same value or the same error message
+     */
+    public static void assertSameResult(Supplier<?> expected, Supplier<?> actual, String message) {
+        assertEquals(parseOrError(expected), parseOrError(actual), message);
+    }
 }